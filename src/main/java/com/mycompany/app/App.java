@@ -19,17 +19,28 @@ package com.mycompany.app;
 import com.esri.arcgisruntime.ArcGISRuntimeEnvironment;
 import com.esri.arcgisruntime.mapping.view.MapView;
 import com.mycompany.app.controller.FilterController;
+import com.mycompany.app.controller.HistogramController;
 import com.mycompany.app.controller.LegendController;
 import com.mycompany.app.controller.MapController;
 import com.mycompany.app.controller.StatisticsController;
+import com.mycompany.app.model.MultiYearPropertyStore;
 import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyIndexes;
+import com.mycompany.app.model.ValueHistogram;
 import com.mycompany.app.service.PropertyFilterService;
+import com.mycompany.app.service.PropertyLoadTask;
+import com.mycompany.app.service.YearComparisonTask;
+import com.mycompany.app.util.AlertUtil;
 import com.mycompany.app.util.AppConstants;
+import com.mycompany.app.util.LoadingUtil;
 import com.mycompany.app.view.FilterPanelView;
+import com.mycompany.app.view.HistogramView;
 import com.mycompany.app.view.LegendView;
 import com.mycompany.app.view.MapViewManager;
 import com.mycompany.app.view.StatisticsView;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -39,18 +50,29 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class App extends Application {
+    // The data file can be chosen with --data=<file>, e.g. to show another year's extract
+    private static final String DEFAULT_DATA_FILE_NAME = "Property_Assessment_Data_2024.csv";
+    // Another year's extract can be loaded with --compare=<file>, the years are taken from the file names
+    // unless given with --year=<year> and --compare-year=<year>
+    private static final Pattern YEAR_IN_FILE_NAME = Pattern.compile("(?<!\\d)(19|20)\\d{2}(?!\\d)");
+
     private MapViewManager mapViewManager;
     private MapView mapView;
     private FilterPanelView filterPanelView;
     private StatisticsView statisticsView;
+    private HistogramView histogramView;
     private LegendView legendView;
     private PropertyAssessments propertyAssessments;
 
     private FilterController filterController;
     private StatisticsController statisticsController;
+    private HistogramController histogramController;
     private LegendController legendController;
     private MapController mapController;
 
@@ -65,13 +87,14 @@ public class App extends Application {
 
     @Override
     public void start(Stage stage) {
+        // Show the map straight away, the data is loaded and indexed in the background
         initializeArcGISRuntime();
         initializeStage(stage);
         initializeViews();
-        loadPropertyData();
-        initializeServicesandControllers();
+        initializeToggleButtons();
         setupStackPane();
         createAndShowScene(stage);
+        loadPropertyData();
     }
 
     private void initializeArcGISRuntime() {
@@ -108,50 +131,159 @@ public class App extends Application {
         mapView = mapViewManager.getMapView();
         filterPanelView = new FilterPanelView();
         statisticsView = new StatisticsView();
+        histogramView = new HistogramView();
         legendView = new LegendView();
+
+        // The filters stay disabled until the data is loaded and indexed
+        filterPanelView.getFilterPanel().setDisable(true);
+    }
+
+    private void initializeToggleButtons() {
+        // Create the toggle buttons, they are wired up once their controllers exist
+        toggleStatsButton = new Button("Hide Statistics");
+        toggleLegendButton = new Button("Hide Legend");
+        toggleStatsButton.setDisable(true);
+        toggleLegendButton.setDisable(true);
     }
 
     private void loadPropertyData() {
-        // Load property data
-        try {
-            propertyAssessments = new PropertyAssessments("Property_Assessment_Data_2024.csv");
-        } catch (IOException e) {
-            System.err.println(e.getMessage());
-            System.exit(1);
+        // Stage 1: load the property data in the background
+        String dataFileName = getParameters().getNamed().getOrDefault("data", DEFAULT_DATA_FILE_NAME);
+        PropertyLoadTask loadTask = new PropertyLoadTask(dataFileName);
+        VBox loadingContainer = LoadingUtil.createLoadingContainer("Loading Property Data...", loadTask);
+        rootStackPane.getChildren().add(loadingContainer);
+
+        loadTask.setOnSucceeded(event -> {
+            rootStackPane.getChildren().remove(loadingContainer);
+            propertyAssessments = loadTask.getValue();
+            initializeControllers(loadTask.getHistogram());
+            buildIndexes();
+            loadComparisonYear(dataFileName);
+            if (propertyAssessments.getLoadWarning() != null) {
+                AlertUtil.showWarningAlert("Snapshot", propertyAssessments.getLoadWarning());
+            }
+        });
+
+        loadTask.setOnFailed(event -> {
+            rootStackPane.getChildren().remove(loadingContainer);
+            Throwable exception = loadTask.getException();
+            System.err.println(exception.getMessage());
+            AlertUtil.showErrorAlert("Error", "The property data could not be loaded: " + exception.getMessage());
             // Exit if data loading fails
-        }
+            Platform.exit();
+        });
+
+        startDaemon(loadTask, "property-load");
     }
 
-    private void initializeServicesandControllers() {
-        // Initialize services
-        PropertyFilterService propertyFilterService = new PropertyFilterService();
+    private void initializeControllers(ValueHistogram allHistogram) {
+        // The load task worked out the statistics, percentiles and histogram of every property, cached by the
+        // assessments or handed over, so the controllers below only read them
+        long propertyMedian = propertyAssessments.getMedian();
 
-        // Initialize controllers
+        // Initialize the controllers that only need the loaded data
         mapController = new MapController(mapViewManager, propertyAssessments, statisticsView);
         statisticsController = new StatisticsController(statisticsView, propertyAssessments);
+        histogramController = new HistogramController(histogramView, propertyAssessments, allHistogram);
         legendController = new LegendController(legendView, propertyAssessments);
-        legendController.legendRecenterInputFieldFunctionality(mapController);
-        filterController = new FilterController(filterPanelView, propertyAssessments, mapController, statisticsController, legendController, propertyFilterService);
 
         // Use MapController to display all properties initially
-        mapController.setAssessedValueCenter(propertyAssessments.getMedian());
+        mapController.setAssessedValueCenter(propertyMedian);
         mapController.displayProperties(propertyAssessments);
 
         // Set up the map click handler
         mapController.setupMapClickHandler();
 
         // Initialize the toggle buttons
-        initializeToggleButtons();
+        statisticsController.initializeToggleButton(toggleStatsButton);
+        legendController.initializeToggleButton(toggleLegendButton);
+        toggleStatsButton.setDisable(false);
+        toggleLegendButton.setDisable(false);
     }
 
-    private void initializeToggleButtons() {
-        // Create the toggle buttons
-        toggleStatsButton = new Button("Hide Statistics");
-        toggleLegendButton = new Button("Hide Legend");
+    private void buildIndexes() {
+        // Stage 2: build the lookup and bitmap indexes in the background, then bring the filters online
+        Task<PropertyIndexes> indexTask = new Task<>() {
+            @Override
+            protected PropertyIndexes call() {
+                propertyAssessments.buildIndexes();
+                return new PropertyIndexes(propertyAssessments.getStore());
+            }
+        };
 
-        // Initialize the toggle buttons
-        statisticsController.initializeToggleButton(toggleStatsButton);
-        legendController.initializeToggleButton(toggleLegendButton);
+        indexTask.setOnSucceeded(event -> {
+            PropertyIndexes propertyIndexes = indexTask.getValue();
+            PropertyFilterService propertyFilterService = new PropertyFilterService(propertyIndexes);
+            filterController = new FilterController(filterPanelView, propertyAssessments, mapController, statisticsController,
+                    histogramController, legendController, propertyFilterService, propertyIndexes.getDistinctValues(), propertyIndexes.getAddresses());
+            // Recentering redraws the properties on screen, so it goes through the filters too
+            legendController.legendRecenterInputFieldFunctionality(filterController);
+            filterPanelView.getFilterPanel().setDisable(false);
+        });
+
+        indexTask.setOnFailed(event -> {
+            indexTask.getException().printStackTrace();
+            AlertUtil.showErrorAlert("Error", "The property filters could not be prepared.");
+        });
+
+        startDaemon(indexTask, "property-index");
+    }
+
+    private void loadComparisonYear(String dataFileName) {
+        // Stage 3: if asked for, load another year so clicked properties show how they changed
+        Map<String, String> parameters = getParameters().getNamed();
+        String compareFileName = parameters.get("compare");
+        if (compareFileName == null) {
+            return;
+        }
+
+        int shownYear = yearOf(parameters.get("year"), dataFileName);
+        int compareYear = yearOf(parameters.get("compare-year"), compareFileName);
+        if (shownYear < 0 || compareYear < 0 || shownYear == compareYear) {
+            AlertUtil.showWarningAlert("Year Comparison", "The years of " + dataFileName + " and " + compareFileName
+                    + " could not be told apart, give them with --year=<year> and --compare-year=<year>.");
+            return;
+        }
+
+        YearComparisonTask compareTask = new YearComparisonTask(propertyAssessments.getStore(), shownYear, compareFileName, compareYear);
+        compareTask.setOnSucceeded(event -> {
+            MultiYearPropertyStore years = compareTask.getValue();
+            statisticsController.setYearComparison(years, shownYear, compareYear);
+            mapController.setOnPropertyShown(statisticsController::showYearComparison);
+            System.out.println("Compared with " + compareYear + ": " + years.getChangedCount(Math.max(shownYear, compareYear))
+                    + " properties changed value, " + years.getAddedAccounts(Math.max(shownYear, compareYear)).size() + " were added.");
+        });
+
+        compareTask.setOnFailed(event -> {
+            System.err.println(compareTask.getException().getMessage());
+            AlertUtil.showWarningAlert("Year Comparison", compareFileName + " could not be loaded: " + compareTask.getException().getMessage());
+        });
+
+        startDaemon(compareTask, "property-compare");
+    }
+
+    // The year given as a parameter, or else the one in the file name, or -1 if there is neither
+    private static int yearOf(String parameter, String fileName) {
+        if (parameter != null) {
+            try {
+                return Integer.parseInt(parameter.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        Matcher matcher = YEAR_IN_FILE_NAME.matcher(Path.of(fileName).getFileName().toString());
+        int year = -1;
+        while (matcher.find()) {
+            year = Integer.parseInt(matcher.group());
+        }
+        return year;
+    }
+
+    // A daemon thread, so closing the window ends the app even while a task is still running
+    private static void startDaemon(Task<?> task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
     }
 
     private void setupStackPane() {
@@ -164,7 +296,8 @@ public class App extends Application {
         StackPane.setAlignment(filterPanelView.getFilterPanel(), Pos.TOP_LEFT);
         StackPane.setMargin(filterPanelView.getFilterPanel(), new Insets(10));
 
-        // Add the statistics panel (top-right corner)
+        // Add the statistics panel (top-right corner), with the histogram under the statistics so they hide together
+        statisticsView.getStatisticsPanel().getChildren().add(histogramView.getHistogramPanel());
         rootStackPane.getChildren().add(statisticsView.getStatisticsPanel());
         StackPane.setAlignment(statisticsView.getStatisticsPanel(), Pos.TOP_RIGHT);
         StackPane.setMargin(statisticsView.getStatisticsPanel(), new Insets(10));
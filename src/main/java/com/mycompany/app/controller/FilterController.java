@@ -1,32 +1,64 @@
 package com.mycompany.app.controller;
 
+import com.mycompany.app.model.AddressSearchIndex;
+import com.mycompany.app.model.DistinctValueCatalog;
 import com.mycompany.app.model.PropertyAssessment;
 import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStore;
+import com.mycompany.app.service.FilterExecutor;
+import com.mycompany.app.service.FilterResultCache;
+import com.mycompany.app.service.FilterResultCache.FilterResult;
 import com.mycompany.app.service.PropertyFilterService;
+import com.mycompany.app.service.PropertyQuery;
 import com.mycompany.app.util.AlertUtil;
 import com.mycompany.app.view.FilterPanelView;
-import javafx.application.Platform;
 import javafx.concurrent.Task;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.VBox;
 
+import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.List;
 
 public class FilterController {
+    // Address matches listed per keystroke
+    private static final int ADDRESS_MATCH_LIMIT = 20;
+    // How long a keystroke's search may take on the UI thread
+    private static final long ADDRESS_SEARCH_BUDGET_MICROS = 1000;
+
     private final FilterPanelView filterPanelView;
     private final PropertyAssessments propertyAssessments;
     private final MapController mapController;
     private final StatisticsController statisticsController;
+    private final HistogramController histogramController;
     private final LegendController legendController;
     private final PropertyFilterService propertyFilterService;
+    private final DistinctValueCatalog distinctValueCatalog;
+    private final AddressSearchIndex addressSearchIndex;
+    private final FilterResultCache filterResultCache = new FilterResultCache();
+    private final FilterExecutor filterExecutor = new FilterExecutor();
+
+    // The filter on screen, which the next one is worked out from when it only narrows or widens it
+    private FilterResult activeResult;
+
+    // The properties behind the address matches listed
+    private List<PropertyAssessment> addressMatches = List.of();
 
     public FilterController(FilterPanelView filterPanelView, PropertyAssessments propertyAssessments,
                             MapController mapController, StatisticsController statisticsController,
-                            LegendController legendController, PropertyFilterService propertyFilterService) {
+                            HistogramController histogramController, LegendController legendController,
+                            PropertyFilterService propertyFilterService, DistinctValueCatalog distinctValueCatalog,
+                            AddressSearchIndex addressSearchIndex) {
         this.filterPanelView = filterPanelView;
         this.propertyAssessments = propertyAssessments;
         this.mapController = mapController;
         this.statisticsController = statisticsController;
+        this.histogramController = histogramController;
         this.legendController = legendController;
         this.propertyFilterService = propertyFilterService;
+        this.distinctValueCatalog = distinctValueCatalog;
+        this.addressSearchIndex = addressSearchIndex;
+        this.activeResult = allResult();
 
         setupFilterListeners();
     }
@@ -35,13 +67,24 @@ public class FilterController {
         filterPanelView.getFilterDropdown().setOnAction(event -> {
             String selectedFilter = filterPanelView.getFilterDropdown().getValue();
             populateValues(selectedFilter);
+            filterPanelView.getMinimumShareInputField().setDisable(!"Assessment Class".equals(selectedFilter));
         });
 
+        filterPanelView.getComparisonDropdown().setOnAction(event ->
+                filterPanelView.getUpperPriceInputField().setDisable(!"Between".equals(filterPanelView.getPriceComparison()))
+        );
+
         filterPanelView.getApplyFilterButton().setOnAction(event -> applyFilter());
 
         filterPanelView.getRemoveFilterButton().setOnAction(event -> clearFilter());
 
         filterPanelView.getAccountSearchButton().setOnAction(event -> searchByAccountNumber());
+
+        filterPanelView.getAddressSearchInput().textProperty().addListener((observable, oldText, newText) -> searchByAddress(newText));
+
+        filterPanelView.getAddressResults().getSelectionModel().selectedIndexProperty().addListener(
+                (observable, oldIndex, newIndex) -> showAddressMatch(newIndex.intValue())
+        );
     }
 
     private void searchByAccountNumber() {
@@ -54,10 +97,7 @@ public class FilterController {
 
         try {
             int accountNumber = Integer.parseInt(accountNumberStr);
-            PropertyAssessment property = propertyAssessments.getProperties().stream()
-                    .filter(p -> p.getAccountID() == accountNumber)
-                    .findFirst()
-                    .orElse(null);
+            PropertyAssessment property = propertyAssessments.getPropertyByAccountID(accountNumber);
 
             if (property == null) {
                 AlertUtil.showInformationAlert("No Results", "No property found with the given account number.");
@@ -73,100 +113,245 @@ public class FilterController {
         }
     }
 
+    // Fast enough to run on every keystroke on the UI thread, a search over its budget is logged
+    private void searchByAddress(String text) {
+        PropertyStore store = addressSearchIndex.getStore();
+        long start = System.nanoTime();
+        int[] rows = addressSearchIndex.search(text, ADDRESS_MATCH_LIMIT);
+        long micros = (System.nanoTime() - start) / 1000;
+        if (micros > ADDRESS_SEARCH_BUDGET_MICROS) {
+            System.out.printf("Address search for \"%s\" took %d us, over its %d us budget%n", text, micros, ADDRESS_SEARCH_BUDGET_MICROS);
+        }
+        addressMatches = Arrays.stream(rows)
+                .mapToObj(row -> new PropertyAssessment(store, row))
+                .toList();
+        filterPanelView.getAddressResults().getItems().setAll(addressMatches.stream()
+                .map(property -> property.getAddress() + " (" + property.getAccountID() + ")")
+                .toList());
+    }
+
+    private void showAddressMatch(int index) {
+        if (index < 0 || index >= addressMatches.size()) {
+            return; // The selection was cleared
+        }
+        PropertyAssessment property = addressMatches.get(index);
+        mapController.highlightProperty(property);
+        statisticsController.displayPropertyInfo(property);
+    }
+
     private void applyFilter() {
+        // The inputs are read and checked here on the UI thread, the task only gets the finished query
+        PropertyQuery query = readQuery();
+        if (query == null) {
+            return;
+        }
+        PropertyQuery previousQuery = activeResult.query();
+        PropertyAssessments previousResult = activeResult.assessments();
+
         // Create a Task for the filter process
-        Task<PropertyAssessments> filterTask = new Task<>() {
+        Task<ViewSnapshot> filterTask = new Task<>() {
             @Override
-            protected PropertyAssessments call() throws Exception {
-                // Retrieve filter parameters
-                String selectedFilter = filterPanelView.getFilterDropdown().getValue();
-                String filterValue = filterPanelView.getValueDropdown().getValue();
-                String garageFilter = filterPanelView.getSelectedGarageFilter();
-                String priceInput = filterPanelView.getPriceInput();
-                String priceComparison = filterPanelView.getPriceComparison();
-
-                Long priceValue = null;
-                if (!priceInput.isEmpty()) {
-                    try {
-                        priceValue = Long.parseLong(priceInput);
-                    } catch (NumberFormatException e) {
-                        Platform.runLater(() ->
-                                AlertUtil.showErrorAlert("Invalid Input", "Price must be a valid number.")
-                        );
-                        return null;
-                    }
-                }
+            protected ViewSnapshot call() throws Exception {
+                // Perform filtering in the background thread, all filters in one pass.
+                // Filters picked before come back from the cache along with their statistics and legend center,
+                // others are worked out from the filter on screen when they narrow or widen it
+                FilterResult filterResult = filterResultCache.get(query, q -> {
+                    PropertyAssessments result = propertyFilterService.refine(propertyAssessments, previousQuery, previousResult, q);
+                    // The statistics are exact over the rows, the percentiles of group selections merge from the aggregate cube
+                    return FilterResult.of(q, result, propertyFilterService.getPercentiles(propertyAssessments, q, result));
+                });
+                // The map graphics are built here too, so every panel can be updated at once when it's done
+                return ViewSnapshot.of(filterResult, this::isCancelled);
+            }
+        };
 
-                if ((selectedFilter == null || filterValue == null) && garageFilter == null && (priceValue == null || priceComparison == null)) {
-                    Platform.runLater(() ->
-                            AlertUtil.showWarningAlert("Invalid Filter", "Please select at least one filter.")
-                    );
-                    return null;
-                }
+        submitSnapshot(filterTask);
+    }
 
-                // Perform filtering in the background thread
-                PropertyAssessments filteredAssessments = propertyAssessments;
+    // The query of the filter panel's inputs, or null after telling the user what is wrong with them
+    private PropertyQuery readQuery() {
+        String selectedFilter = filterPanelView.getFilterDropdown().getValue();
+        List<String> filterValues = filterPanelView.getSelectedValues();
+        String garageFilter = filterPanelView.getSelectedGarageFilter();
+        String priceInput = filterPanelView.getPriceInput();
+        String priceComparison = filterPanelView.getPriceComparison();
+        String upperPriceInput = filterPanelView.getUpperPriceInput();
+        String minimumShareInput = filterPanelView.getMinimumShareInputField().getText().trim();
 
-                if (selectedFilter != null && filterValue != null) {
-                    filteredAssessments = propertyFilterService.filterByCriteria(filteredAssessments, selectedFilter, filterValue);
-                }
+        Integer minimumShare = null;
+        if ("Assessment Class".equals(selectedFilter) && !minimumShareInput.isEmpty()) {
+            try {
+                minimumShare = Integer.parseInt(minimumShareInput);
+            } catch (NumberFormatException e) {
+                minimumShare = -1;
+            }
+            if (minimumShare < 0 || minimumShare > 100) {
+                AlertUtil.showErrorAlert("Invalid Input", "Minimum class share must be a whole percentage from 0 to 100.");
+                return null;
+            }
+        }
 
-                if (!"All".equals(garageFilter)) {
-                    filteredAssessments = propertyFilterService.filterByGarage(filteredAssessments, garageFilter);
-                }
+        Long priceValue = null;
+        Long upperPriceValue = null;
+        try {
+            if (!priceInput.isEmpty()) {
+                priceValue = Long.parseLong(priceInput);
+            }
+            if ("Between".equals(priceComparison) && !upperPriceInput.isEmpty()) {
+                upperPriceValue = Long.parseLong(upperPriceInput);
+            }
+        } catch (NumberFormatException e) {
+            AlertUtil.showErrorAlert("Invalid Input", "Price must be a valid number.");
+            return null;
+        }
 
-                if (priceValue != null && priceComparison != null) {
-                    filteredAssessments = propertyFilterService.filterByPrice(filteredAssessments, priceComparison, priceValue);
-                }
+        if ("Between".equals(priceComparison) && priceValue != null
+                && (upperPriceValue == null || upperPriceValue < priceValue)) {
+            AlertUtil.showWarningAlert("Invalid Filter", "Please enter an upper price at or above the lower price.");
+            return null;
+        }
 
-                return filteredAssessments;
-            }
-        };
+        if ((selectedFilter == null || filterValues.isEmpty()) && garageFilter == null && (priceValue == null || priceComparison == null)) {
+            AlertUtil.showWarningAlert("Invalid Filter", "Please select at least one filter.");
+            return null;
+        }
+
+        return PropertyQuery.ALL
+                .withCriteria(selectedFilter, filterValues)
+                .withMinimumShare(minimumShare)
+                .withGarage(garageFilter)
+                .withPrice(priceComparison, priceValue, upperPriceValue);
+    }
+
+    /**
+     * Runs a task building a snapshot on the filter thread, cancelling any filter still running or
+     * waiting, and publishes the snapshot when it's done.
+     */
+    private void submitSnapshot(Task<ViewSnapshot> snapshotTask) {
+        VBox loadingContainer = mapController.showLoading(snapshotTask);
 
         // Update the UI upon task completion
-        filterTask.setOnSucceeded(event -> {
-            PropertyAssessments filteredAssessments = filterTask.getValue();
-            if (filteredAssessments == null || filteredAssessments.getProperties().isEmpty()) {
+        snapshotTask.setOnSucceeded(event -> {
+            mapController.hideLoading(loadingContainer);
+            if (!filterExecutor.acceptResult(snapshotTask)) {
+                return; // A newer filter was applied since, its result is the one to show
+            }
+            ViewSnapshot snapshot = snapshotTask.getValue();
+            publish(snapshot);
+            if (snapshot.isEmpty()) {
                 AlertUtil.showInformationAlert("No Results", "No properties match the selected filters.");
-                statisticsController.updateStatistics(new PropertyAssessments(List.of()));
-                legendController.updateLegend(new PropertyAssessments(List.of()));
-            } else {
-                mapController.displayProperties(filteredAssessments);
-                statisticsController.updateStatistics(filteredAssessments);
-                legendController.updateLegend(filteredAssessments);
             }
         });
 
         // Handle errors in the background task
-        filterTask.setOnFailed(event -> {
-            Throwable exception = filterTask.getException();
-            if (exception != null) {
+        snapshotTask.setOnFailed(event -> {
+            mapController.hideLoading(loadingContainer);
+            Throwable exception = snapshotTask.getException();
+            if (exception != null && filterExecutor.acceptResult(snapshotTask)) {
                 exception.printStackTrace();
                 AlertUtil.showErrorAlert("Error", "An error occurred while applying the filter.");
             }
         });
 
-        // Run the task in a background thread
-        new Thread(filterTask).start();
+        snapshotTask.setOnCancelled(event -> mapController.hideLoading(loadingContainer));
+
+        // Run the task on the filter thread, cancelling any filter still running or waiting
+        filterExecutor.submit(snapshotTask);
+    }
+
+    // Shows the snapshot on every panel in one go on the UI thread, so they never show different results
+    private void publish(ViewSnapshot snapshot) {
+        activeResult = snapshot.getResult();
+        mapController.showSnapshot(snapshot);
+        statisticsController.updateStatistics(snapshot.getStatistics(), snapshot.getPercentiles());
+        if (snapshot.isEmpty()) {
+            histogramController.displayNoHistogram();
+            legendController.displayNoLegend();
+        } else {
+            histogramController.updateHistogram(snapshot.getAssessments(), snapshot.getStatistics());
+            legendController.updateLegend(snapshot.getLegendCenter());
+        }
+        logCacheUse();
+        logExecutorUse();
+    }
+
+    // Logged after every filter shown, so the cache's hit rate and footprint can be watched while the app is used
+    private void logCacheUse() {
+        System.out.printf("Filter cache: %d hits, %d misses, %d evicted, %d results in about %d KB%n",
+                filterResultCache.getHitCount(), filterResultCache.getMissCount(), filterResultCache.getEvictionCount(),
+                filterResultCache.size(), filterResultCache.getEstimatedBytes() / 1024);
+    }
+
+    // Shows how many filters were superseded before or after running, and how many are still waiting their turn
+    private void logExecutorUse() {
+        System.out.printf("Filter executor: %d submitted, %d cancelled, %d discarded, %d waiting%n",
+                filterExecutor.getSubmittedCount(), filterExecutor.getCancelledCount(),
+                filterExecutor.getDiscardedCount(), filterExecutor.getQueueDepth());
+    }
+
+    /**
+     * Colors the properties on screen around another value, or around their median when the center
+     * is null. The map is rebuilt on the filter thread like a filter, so a recenter and a filter
+     * never race each other. Call from the UI thread.
+     */
+    public void recenterLegend(Long center) {
+        FilterResult shown = activeResult;
+        if (shown.isEmpty()) {
+            return; // No properties to color, the legend stays cleared
+        }
+        long legendCenter = center != null ? center : shown.statistics().median();
+        submitSnapshot(new Task<>() {
+            @Override
+            protected ViewSnapshot call() {
+                return ViewSnapshot.of(shown.withLegendCenter(legendCenter), this::isCancelled);
+            }
+        });
+    }
+
+    // Every property, cached like any other filter so its statistics and percentiles are worked out once
+    private FilterResult allResult() {
+        return filterResultCache.get(PropertyQuery.ALL, q -> FilterResult.of(q, propertyAssessments,
+                propertyFilterService.getPercentiles(propertyAssessments, q, propertyAssessments)));
     }
 
     private void clearFilter() {
-        mapController.displayProperties(propertyAssessments);
-        statisticsController.updateStatistics(propertyAssessments);
-        legendController.updateLegend(propertyAssessments);
+        // All the properties go through the same snapshot as a filter, which also cancels one still running
+        submitSnapshot(new Task<>() {
+            @Override
+            protected ViewSnapshot call() {
+                return ViewSnapshot.of(allResult(), this::isCancelled);
+            }
+        });
 
         // Clear each filter component
         filterPanelView.getFilterDropdown().getSelectionModel().clearSelection();
-        filterPanelView.getValueDropdown().getSelectionModel().clearSelection();
+        filterPanelView.getValueList().getSelectionModel().clearSelection();
+        filterPanelView.getMinimumShareInputField().clear();
+        filterPanelView.getMinimumShareInputField().setDisable(true);
         filterPanelView.getPriceInputField().clear();
+        filterPanelView.getUpperPriceInputField().clear();
+        filterPanelView.getUpperPriceInputField().setDisable(true);
         filterPanelView.getAccountSearchInput().clear();
+        filterPanelView.getAddressSearchInput().clear();
         filterPanelView.getAllButton().setSelected(true);
         filterPanelView.getComparisonDropdown().getSelectionModel().clearSelection();
     }
 
     private void populateValues(String selectedFilter) {
-        List<String> values = propertyFilterService.getDistinctValues(propertyAssessments, selectedFilter);
-        filterPanelView.getValueDropdown().getItems().clear();
-        filterPanelView.getValueDropdown().getItems().addAll(values);
+        // The catalog was built with the indexes, so this is a lookup rather than a pass over the properties
+        List<String> values = distinctValueCatalog.getValues(selectedFilter);
+        NumberFormat countFormat = NumberFormat.getIntegerInstance();
+        filterPanelView.getValueList().setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String value, boolean empty) {
+                super.updateItem(value, empty);
+                if (empty || value == null) {
+                    setText(null);
+                } else {
+                    setText(value + " (" + countFormat.format(distinctValueCatalog.getCount(selectedFilter, value)) + ")");
+                }
+            }
+        });
+        filterPanelView.getValueList().getItems().setAll(values);
     }
-}
+}
\ No newline at end of file
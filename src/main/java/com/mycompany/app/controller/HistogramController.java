@@ -0,0 +1,68 @@
+package com.mycompany.app.controller;
+
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStatistics;
+import com.mycompany.app.model.ValueHistogram;
+import com.mycompany.app.view.HistogramView;
+
+public class HistogramController {
+    private final HistogramView histogramView;
+    // Reused for every update, so switching filters doesn't allocate new bin arrays
+    private final ValueHistogram histogram;
+
+    // The properties charted, kept so switching the scale can chart them again
+    private PropertyAssessments shownAssessments;
+    private PropertyStatistics shownStatistics;
+    private PropertyAssessments countedAssessments; // The properties the histogram last counted
+
+    /**
+     * Creates the controller and charts every property.
+     *
+     * @param allHistogram The histogram of every property, already counted off the UI thread, or null to count it here.
+     */
+    public HistogramController(HistogramView histogramView, PropertyAssessments propertyAssessments, ValueHistogram allHistogram) {
+        this.histogramView = histogramView;
+        this.histogram = allHistogram != null ? allHistogram : new ValueHistogram();
+        this.countedAssessments = allHistogram != null ? propertyAssessments : null;
+
+        histogramView.getLinearButton().setOnAction(event -> redraw());
+        histogramView.getLogButton().setOnAction(event -> redraw());
+
+        updateHistogram(propertyAssessments, propertyAssessments.getStatistics()); // Initialize with all data
+    }
+
+    /**
+     * Charts the assessed values of a collection. The statistics give the range of the bins and
+     * must be the collection's own. Call from the UI thread.
+     */
+    public void updateHistogram(PropertyAssessments assessments, PropertyStatistics statistics) {
+        shownAssessments = assessments;
+        shownStatistics = statistics;
+        redraw();
+    }
+
+    public void displayNoHistogram() {
+        updateHistogram(null, PropertyStatistics.EMPTY);
+    }
+
+    private void redraw() {
+        if (shownAssessments == null || shownStatistics.isEmpty()) {
+            histogramView.displayNoHistogram();
+            return;
+        }
+        // Keep the scale showing if the selected button was clicked again and deselected
+        if (!histogramView.getLinearButton().isSelected() && !histogramView.getLogButton().isSelected()) {
+            histogramView.getLogButton().setSelected(histogram.getScale() == ValueHistogram.Scale.LOG);
+            histogramView.getLinearButton().setSelected(histogram.getScale() == ValueHistogram.Scale.LINEAR);
+        }
+        ValueHistogram.Scale scale = histogramView.getLinearButton().isSelected()
+                ? ValueHistogram.Scale.LINEAR
+                : ValueHistogram.Scale.LOG;
+        if (shownAssessments != countedAssessments || histogram.getScale() != scale) {
+            histogram.compute(shownAssessments, shownStatistics.minValue(), shownStatistics.maxValue(), scale);
+            countedAssessments = shownAssessments;
+        }
+        histogramView.drawHistogram(histogram.getCounts(), histogram.getEdges(), histogram.getBinCount(),
+                histogram.getMaxCount());
+    }
+}
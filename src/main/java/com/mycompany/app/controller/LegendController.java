@@ -16,12 +16,10 @@ import java.text.NumberFormat;
 public class LegendController {
     private final LegendView legendView;
     private final PropertyAssessments propertyAssessments;
-    private final Long propertyMedian;
 
     public LegendController(LegendView legendView, PropertyAssessments propertyAssessments) {
         this.legendView = legendView;
         this.propertyAssessments = propertyAssessments;
-        this.propertyMedian = propertyAssessments.getMedian();
 
         initializeLegend();
     }
@@ -35,16 +33,22 @@ public class LegendController {
         if (assessments == null || assessments.getProperties().isEmpty()) {
             legendView.displayNoLegend();
         } else {
-            // Refresh legend dynamically based on assessed value center
-            long centerValue = assessments.getMedian();
-            NumberFormat numberFormat = NumberFormat.getNumberInstance(); // Formatter for numeric values
-            legendView.refreshLegend(centerValue, numberFormat);
+            updateLegend(assessments.getMedian());
         }
     }
 
-    public void legendRecenterInputFieldFunctionality(MapController mapController) {
+    public void displayNoLegend() {
+        legendView.displayNoLegend();
+    }
+
+    public void updateLegend(long centerValue) {
+        // Refresh legend dynamically based on assessed value center
+        NumberFormat numberFormat = NumberFormat.getNumberInstance(); // Formatter for numeric values
+        legendView.refreshLegend(centerValue, numberFormat);
+    }
+
+    public void legendRecenterInputFieldFunctionality(FilterController filterController) {
         TextField legendRecenterInputField = legendView.getLegendRecenterInputField();
-        NumberFormat numberFormat = NumberFormat.getNumberInstance();
         legendRecenterInputField.setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent keyEvent) {
@@ -52,22 +56,15 @@ public class LegendController {
                     // Get the value from the input field
                     String inputString = legendRecenterInputField.getText().trim();
 
-                    // Error check the value
-                    long newLegendRecenterValue;
+                    // Error check the value, an empty field centers on the median of the properties shown
                     if (!inputString.isEmpty()) {
                         try {
-                            newLegendRecenterValue = Long.parseLong(inputString);
-                            legendView.refreshLegend(newLegendRecenterValue, numberFormat);
-                            mapController.setAssessedValueCenter(newLegendRecenterValue);
-                            mapController.displayProperties(propertyAssessments);
+                            filterController.recenterLegend(Long.parseLong(inputString));
                         } catch (NumberFormatException e) {
                             AlertUtil.showErrorAlert("Invalid price value", "Please enter a valid number.");
                         }
                     } else {
-                        newLegendRecenterValue = propertyMedian;
-                        legendView.refreshLegend(newLegendRecenterValue, numberFormat);
-                        mapController.setAssessedValueCenter(newLegendRecenterValue);
-                        mapController.displayProperties(propertyAssessments);
+                        filterController.recenterLegend(null);
                     }
                 }
             }
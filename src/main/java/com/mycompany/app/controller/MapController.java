@@ -11,6 +11,7 @@ import com.mycompany.app.util.LoadingUtil;
 import com.mycompany.app.view.MapViewManager;
 import com.mycompany.app.model.PropertyAssessment;
 import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStore;
 import com.mycompany.app.view.StatisticsView;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -19,17 +20,39 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public class MapController {
+    // The marker colors by color class, from the lowest values up
+    private static final Color[] CLASS_COLORS = {
+            Color.BLACK,          // Zero value
+            Color.web("#4b2ca3"), // Royal Blue
+            Color.web("#0077bb"), // Bright Azure
+            Color.web("#00b891"), // Vivid Turquoise
+            Color.web("#6ccc63"), // Spring Green
+            Color.web("#d9ed4c"), // Bright Lime
+            Color.web("#ffff66"), // Pure Yellow
+            Color.web("#ffcc33"), // Bright Amber
+            Color.web("#ff8c00"), // Vivid Orange
+            Color.web("#e64a19"), // Deep Coral
+            Color.web("#c70039"), // Crimson
+            Color.web("#800026")  // Dark Burgundy
+    };
+
+    // Properties given to a worker at a time when building graphics, and how often it checks for cancellation
+    private static final int GRAPHICS_BLOCK_SIZE = 4096;
+
     private final MapViewManager mapViewManager;
     private long assessedValueCenter;
+    private int snapshotsShown; // Counted so a display started before a snapshot never covers it
     private PropertyAssessments propertyAssessments;
     private StatisticsView statisticsView;
+    private Consumer<PropertyAssessment> onPropertyShown = property -> {}; // Called after a clicked property's details are shown
 
     public MapController(MapViewManager mapViewManager, PropertyAssessments propertyAssessments, StatisticsView statisticsView) {
         this.mapViewManager = mapViewManager;
@@ -52,48 +75,13 @@ public class MapController {
      * @param assessments The collection of property assessments to display.
      */
     public void displayProperties(PropertyAssessments assessments) {
+        long center = assessedValueCenter;
+        int snapshotsBefore = snapshotsShown;
         Task<List<Graphic>> task = new Task<>() {
             @Override
             protected List<Graphic> call() throws Exception {
-                List<PropertyAssessment> properties = assessments.getProperties();
-                int totalProperties = properties.size();
-                final int[] processedCount = {0};
-
-                // Use a dedicated thread pool for parallel processing
-                ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-                try {
-                    return properties.stream()
-                            .map(property -> executorService.submit(() -> {
-                                if (isCancelled()) {
-                                    throw new InterruptedException("Task was cancelled");
-                                }
-                                // Generate color and symbol
-                                Color color = determineColor(property.getAssessedValue());
-                                SimpleMarkerSymbol symbol = new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, color, 15);
-
-                                // Create the graphic
-                                Point point = new Point(property.getLocation().getLng(), property.getLocation().getLat(), SpatialReferences.getWgs84());
-                                Graphic graphic = new Graphic(point, symbol);
-
-                                // Add attributes to the graphic
-                                graphic.getAttributes().put("accountID", property.getAccountID());
-
-                                // Update progress safely on the UI thread
-                                Platform.runLater(() -> updateProgress(++processedCount[0], totalProperties));
-
-                                return graphic;
-                            }))
-                            .map(future -> {
-                                try {
-                                    return future.get();
-                                } catch (Exception e) {
-                                    throw new RuntimeException(e);
-                                }
-                            })
-                            .collect(Collectors.toCollection(ArrayList::new));
-                } finally {
-                    executorService.shutdown();
-                }
+                // Colored around the center set for the map
+                return Arrays.asList(buildGraphics(assessments, center, this::isCancelled));
             }
         };
 
@@ -103,9 +91,12 @@ public class MapController {
 
         // Task handlers
         task.setOnSucceeded(e -> {
-            List<Graphic> graphics = task.getValue();
-            mapViewManager.getGraphicsOverlay().getGraphics().clear();
-            mapViewManager.getGraphicsOverlay().getGraphics().addAll(graphics);
+            // A snapshot shown while these were built is newer, so it stays on the map
+            if (snapshotsShown == snapshotsBefore) {
+                List<Graphic> graphics = task.getValue();
+                mapViewManager.getGraphicsOverlay().getGraphics().clear();
+                mapViewManager.getGraphicsOverlay().getGraphics().addAll(graphics);
+            }
             Platform.runLater(() -> ((StackPane) mapViewManager.getMapView().getScene().getRoot()).getChildren().remove(loadingContainer));
         });
 
@@ -115,9 +106,62 @@ public class MapController {
         });
 
         // Start the task
-        new Thread(task).start();
+        Thread thread = new Thread(task, "property-display");
+        thread.setDaemon(true); // Closing the window ends the app without waiting for the graphics
+        thread.start();
+    }
+
+    /**
+     * Shows the graphics of a snapshot built off the UI thread, and colors later displays around
+     * its legend center so they keep matching the legend. Call from the UI thread.
+     */
+    public void showSnapshot(ViewSnapshot snapshot) {
+        assessedValueCenter = snapshot.getLegendCenter();
+        snapshotsShown++;
+        mapViewManager.getGraphicsOverlay().getGraphics().clear();
+        mapViewManager.getGraphicsOverlay().getGraphics().addAll(snapshot.getGraphics());
+    }
+
+    /**
+     * Shows an indeterminate loading indicator over the map for a task. Call from the UI thread,
+     * and hand the returned indicator to {@link #hideLoading(VBox)} however the task ends.
+     */
+    public VBox showLoading(Task<?> task) {
+        VBox loadingContainer = LoadingUtil.createLoadingContainer("Loading Properties...", task);
+        ((StackPane) mapViewManager.getMapView().getScene().getRoot()).getChildren().add(loadingContainer);
+        return loadingContainer;
+    }
+
+    public void hideLoading(VBox loadingContainer) {
+        ((StackPane) mapViewManager.getMapView().getScene().getRoot()).getChildren().remove(loadingContainer);
     }
 
+    /**
+     * Classifies every property around the center and builds its graphic, in blocks spread over
+     * the common fork-join pool. Stops with a {@link CancellationException} once {@code cancelled}
+     * says so.
+     *
+     * @return The graphics in the order of the collection.
+     */
+    static Graphic[] buildGraphics(PropertyAssessments assessments, long center, BooleanSupplier cancelled) {
+        PropertyStore store = assessments.getStore();
+        int count = assessments.getNumberOfRecords();
+        Graphic[] graphics = new Graphic[count];
+
+        // One symbol per class, shared by every graphic of that class
+        SimpleMarkerSymbol[] symbols = createClassSymbols();
+        IntStream.range(0, (count + GRAPHICS_BLOCK_SIZE - 1) / GRAPHICS_BLOCK_SIZE).parallel().forEach(block -> {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("The graphics are no longer needed.");
+            }
+            int end = Math.min(count, (block + 1) * GRAPHICS_BLOCK_SIZE);
+            for (int i = block * GRAPHICS_BLOCK_SIZE; i < end; i++) {
+                PropertyAssessment property = new PropertyAssessment(store, assessments.getRow(i));
+                graphics[i] = createGraphic(property, symbols[colorClassOf(property.getAssessedValue(), center)]);
+            }
+        });
+        return graphics;
+    }
 
     /**
      * Clears all graphics from the map.
@@ -127,37 +171,56 @@ public class MapController {
     }
 
     /**
-     * Determines the color for a marker based on the assessed value.
+     * Determines the color class of an assessed value, an index into {@link #CLASS_COLORS}. The
+     * classes are those the legend shows around the same center.
      *
      * @param assessedValue The assessed value of the property.
-     * @return The color representing the assessed value.
+     * @param center        The assessed value the legend is centered on.
+     * @return The color class representing the assessed value.
      */
-    private Color determineColor(long assessedValue) {
+    static int colorClassOf(long assessedValue, long center) {
         if (assessedValue == 0) {
-            return Color.BLACK;
-        } else if (assessedValue <= assessedValueCenter * 0.5) {
-            return Color.web("#4b2ca3"); // Royal Blue
-        } else if (assessedValue <= assessedValueCenter * 0.70) {
-            return Color.web("#0077bb"); // Bright Azure
-        } else if (assessedValue <= assessedValueCenter * 0.85) {
-            return Color.web("#00b891"); // Vivid Turquoise
-        } else if (assessedValue <= assessedValueCenter * 0.95) {
-            return Color.web("#6ccc63"); // Spring Green
-        } else if (assessedValue <= assessedValueCenter * 0.98) {
-            return Color.web("#d9ed4c"); // Bright Lime
-        } else if (assessedValue == assessedValueCenter) {
-            return Color.web("#ffff66"); // Pure Yellow
-        } else if (assessedValue <= assessedValueCenter * 1.02) {
-            return Color.web("#ffcc33"); // Bright Amber
-        } else if (assessedValue <= assessedValueCenter * 1.05) {
-            return Color.web("#ff8c00"); // Vivid Orange
-        } else if (assessedValue <= assessedValueCenter * 1.15) {
-            return Color.web("#e64a19"); // Deep Coral
-        } else if (assessedValue <= assessedValueCenter * 1.30) {
-            return Color.web("#c70039"); // Crimson
+            return 0;
+        } else if (assessedValue <= center * 0.5) {
+            return 1;
+        } else if (assessedValue <= center * 0.70) {
+            return 2;
+        } else if (assessedValue <= center * 0.85) {
+            return 3;
+        } else if (assessedValue <= center * 0.95) {
+            return 4;
+        } else if (assessedValue <= center * 0.98) {
+            return 5;
+        } else if (assessedValue == center) {
+            return 6;
+        } else if (assessedValue <= center * 1.02) {
+            return 7;
+        } else if (assessedValue <= center * 1.05) {
+            return 8;
+        } else if (assessedValue <= center * 1.15) {
+            return 9;
+        } else if (assessedValue <= center * 1.30) {
+            return 10;
         } else {
-            return Color.web("#800026"); // Dark Burgundy
+            return 11;
+        }
+    }
+
+    // A marker symbol per color class, created per build since ArcGIS objects can't be made before the runtime starts
+    static SimpleMarkerSymbol[] createClassSymbols() {
+        SimpleMarkerSymbol[] symbols = new SimpleMarkerSymbol[CLASS_COLORS.length];
+        for (int colorClass = 0; colorClass < symbols.length; colorClass++) {
+            symbols[colorClass] = new SimpleMarkerSymbol(SimpleMarkerSymbol.Style.CIRCLE, CLASS_COLORS[colorClass], 15);
         }
+        return symbols;
+    }
+
+    // A marker at the property, carrying its account number for the click handler
+    static Graphic createGraphic(PropertyAssessment property, SimpleMarkerSymbol symbol) {
+        Point point = new Point(property.getLocation().getLng(), property.getLocation().getLat(), SpatialReferences.getWgs84());
+        Graphic graphic = new Graphic(point, symbol);
+        graphic.getAttributes().put("accountID", property.getAccountID());
+        return graphic;
     }
 
     public void highlightProperty(PropertyAssessment property) {
@@ -172,6 +235,10 @@ public class MapController {
         mapViewManager.getMapView().setViewpointCenterAsync(propertyPoint, 3000); // Center map on the property
     }
 
+    public void setOnPropertyShown(Consumer<PropertyAssessment> onPropertyShown) {
+        this.onPropertyShown = onPropertyShown;
+    }
+
     public void setupMapClickHandler() {
         mapViewManager.getMapView().setOnMouseClicked(event -> {
             if (event.isStillSincePress()) { // Ensure it's a click and not a drag
@@ -194,10 +261,7 @@ public class MapController {
 
                             if (accountID != null) {
                                 // Find the associated property
-                                PropertyAssessment property = propertyAssessments.getProperties().stream()
-                                        .filter(p -> p.getAccountID() == accountID)
-                                        .findFirst()
-                                        .orElse(null);
+                                PropertyAssessment property = propertyAssessments.getPropertyByAccountID(accountID);
 
                                 // Highlight the property on the map
                                 highlightProperty(property);
@@ -213,6 +277,7 @@ public class MapController {
                                             property.getLocation().getLat(),
                                             property.getLocation().getLng()
                                     );
+                                    onPropertyShown.accept(property);
                                 } else {
                                     AlertUtil.showInformationAlert("No Property Found", "No property data available for the selected point.");
                                 }
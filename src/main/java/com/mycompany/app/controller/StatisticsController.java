@@ -1,18 +1,28 @@
 package com.mycompany.app.controller;
 
+import com.mycompany.app.model.MultiYearPropertyStore;
+import com.mycompany.app.model.Percentiles;
 import com.mycompany.app.model.PropertyAssessment;
 import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStatistics;
 import com.mycompany.app.view.StatisticsView;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.layout.StackPane;
 
 import java.text.NumberFormat;
+import java.util.SortedMap;
 
 public class StatisticsController {
     private final StatisticsView statisticsView;
     private final PropertyAssessments propertyAssessments;
 
+    // Set once another year's extract is loaded with --compare=<file>
+    private MultiYearPropertyStore yearComparison;
+    private int shownYear;
+    private int compareYear;
+    private SortedMap<String, Double> neighborhoodChanges;
+
     public StatisticsController(StatisticsView statisticsView, PropertyAssessments propertyAssessments) {
         this.statisticsView = statisticsView;
         this.propertyAssessments = propertyAssessments;
@@ -21,16 +31,31 @@ public class StatisticsController {
     }
 
     public void updateStatistics(PropertyAssessments filteredAssessments) {
-        if (filteredAssessments == null || filteredAssessments.getProperties().isEmpty()) {
+        if (filteredAssessments == null) {
+            updateStatistics(PropertyStatistics.EMPTY, Percentiles.EMPTY);
+        } else {
+            updateStatistics(PropertyStatistics.of(filteredAssessments), Percentiles.of(filteredAssessments));
+        }
+    }
+
+    // Shows figures computed earlier, for example kept with a cached filter result
+    public void updateStatistics(PropertyStatistics statistics, Percentiles percentiles) {
+        if (statistics.isEmpty()) {
             statisticsView.displayNoStatistics();
         } else {
             statisticsView.updateStatistics(
-                    filteredAssessments.getNumberOfRecords(),
-                    filteredAssessments.getMinValue(),
-                    filteredAssessments.getMaxValue(),
-                    filteredAssessments.getRange(),
-                    filteredAssessments.getMean(),
-                    filteredAssessments.getMedian()
+                    statistics.numberOfRecords(),
+                    statistics.minValue(),
+                    statistics.maxValue(),
+                    statistics.range(),
+                    statistics.mean(),
+                    statistics.median(),
+                    percentiles.p10(),
+                    percentiles.p25(),
+                    percentiles.p75(),
+                    percentiles.p90(),
+                    percentiles.p99(),
+                    percentiles.exact()
             );
         }
     }
@@ -57,9 +82,41 @@ public class StatisticsController {
                     property.getLocation().getLat(),
                     property.getLocation().getLng()
             ));
+            showYearComparison(property);
         }
     }
 
+    public void setYearComparison(MultiYearPropertyStore yearComparison, int shownYear, int compareYear) {
+        this.yearComparison = yearComparison;
+        this.shownYear = shownYear;
+        this.compareYear = compareYear;
+        // Worked out once, every shown property only looks up its neighborhood
+        neighborhoodChanges = yearComparison.getPercentChangeByNeighborhood(
+                Math.min(shownYear, compareYear), Math.max(shownYear, compareYear));
+    }
+
+    // Adds how the property and its neighborhood changed since or until the compared year to the property info
+    public void showYearComparison(PropertyAssessment property) {
+        if (yearComparison == null || property == null) {
+            return;
+        }
+
+        long compareValue = yearComparison.getAssessedValue(compareYear, property.getAccountID());
+        String valueLine;
+        if (compareValue < 0) {
+            valueLine = String.format("Not assessed in %d", compareYear);
+        } else {
+            valueLine = String.format("Assessment Value in %d: %s", compareYear,
+                    NumberFormat.getCurrencyInstance().format(compareValue));
+        }
+
+        Double neighborhoodChange = neighborhoodChanges.get(property.getNeighborhood().getNeighborhoodName());
+        String changeLine = neighborhoodChange == null ? "" : String.format("%nNeighborhood Change %d-%d: %+.1f%%",
+                Math.min(shownYear, compareYear), Math.max(shownYear, compareYear), neighborhoodChange);
+
+        statisticsView.getPropertyInfoArea().appendText(String.format("%n%n%s%s", valueLine, changeLine));
+    }
+
     public void displayNoStatistics() {
         statisticsView.displayNoStatistics();
     }
@@ -0,0 +1,47 @@
+package com.mycompany.app.controller;
+
+import com.esri.arcgisruntime.mapping.view.Graphic;
+import com.mycompany.app.model.Percentiles;
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStatistics;
+import com.mycompany.app.service.FilterResultCache.FilterResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Everything the map, statistics and legend show for one filter result: its statistics, legend
+ * center and the map graphics colored around that center. Built off the UI thread, then handed to
+ * every panel at once, so they always show the same properties. Immutable once built.
+ */
+public final class ViewSnapshot {
+    private final FilterResult result;
+    private final List<Graphic> graphics;
+
+    private ViewSnapshot(FilterResult result, List<Graphic> graphics) {
+        this.result = result;
+        this.graphics = graphics;
+    }
+
+    /**
+     * Classifies and builds a map graphic for every property of the result, spread over the common
+     * fork-join pool. Stops with a {@link java.util.concurrent.CancellationException} once
+     * {@code cancelled} says so.
+     */
+    public static ViewSnapshot of(FilterResult result, BooleanSupplier cancelled) {
+        Graphic[] graphics = MapController.buildGraphics(result.assessments(), result.legendCenter(), cancelled);
+        return new ViewSnapshot(result, Collections.unmodifiableList(Arrays.asList(graphics)));
+    }
+
+    public FilterResult getResult() {return result;}
+    public PropertyAssessments getAssessments() {return result.assessments();}
+    public PropertyStatistics getStatistics() {return result.statistics();}
+    public Percentiles getPercentiles() {return result.percentiles();}
+    public long getLegendCenter() {return result.legendCenter();}
+    public boolean isEmpty() {return result.isEmpty();}
+
+    // The properties' graphics in the order of the result, not to be changed
+    public List<Graphic> getGraphics() {return graphics;}
+}
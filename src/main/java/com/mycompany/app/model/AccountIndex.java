@@ -0,0 +1,53 @@
+package com.mycompany.app.model;
+
+// Finds the row of an account number in a PropertyStore without boxing
+public class AccountIndex {
+    private final PropertyStore store;
+    private final int[] accountIDs;
+    private final int[] rows; // A slot holds the row plus one, zero marks an empty slot
+    private final int size;
+
+    public AccountIndex(PropertyStore store) {
+        this.store = store;
+        int capacity = Integer.highestOneBit(Math.max(store.size(), 1) * 2 - 1) << 1;
+        accountIDs = new int[capacity];
+        rows = new int[capacity];
+
+        int count = 0;
+        int mask = capacity - 1;
+        for (int row = 0; row < store.size(); row++) {
+            int accountID = store.getAccountID(row);
+            int slot = mix(accountID) & mask;
+            while (rows[slot] != 0 && accountIDs[slot] != accountID) {
+                slot = (slot + 1) & mask;
+            }
+            if (rows[slot] == 0) {
+                accountIDs[slot] = accountID;
+                rows[slot] = row + 1;
+                count++;
+            }
+        }
+        size = count;
+    }
+
+    // Returns the row of the given account number, or -1 if the store has no such account
+    public int rowOf(int accountID) {
+        int mask = rows.length - 1;
+        for (int slot = mix(accountID) & mask; rows[slot] != 0; slot = (slot + 1) & mask) {
+            if (accountIDs[slot] == accountID) {
+                return rows[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    public PropertyStore getStore() {return store;}
+
+    // The number of distinct account numbers indexed
+    public int size() {return size;}
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,352 @@
+package com.mycompany.app.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Finds properties by address as it is typed, such as "10210 104 ST", "jasper av" or just "10210"
+public class AddressSearchIndex {
+    // Normalized names use 37 symbols: space, digits and letters
+    private static final int SYMBOLS = 37;
+    private static final int[] NO_STREETS = new int[0];
+
+    private final PropertyStore store;
+    private final String[] streetNames;      // Normalized, by street code
+    private final int[] streetsByName;       // Street codes in order of normalized name
+    private final int[][] streetsByTrigram;  // Sorted street codes per trigram
+    private final int[][] rowsByStreet;      // Rows per street code, by house number then row
+    private final int[][] houseNumbersByStreet;
+    private final int[] rowsByHouseNumber;   // Every row, by house number then row
+    private final int[] houseNumbers;        // The house numbers of rowsByHouseNumber
+
+    public AddressSearchIndex(PropertyStore store) {
+        this.store = store;
+        StringDictionary streets = store.getStreets();
+        int streetCount = streets.size();
+
+        streetNames = new String[streetCount];
+        for (int code = 0; code < streetCount; code++) {
+            streetNames[code] = normalize(streets.valueOf(code));
+        }
+        streetsByName = sortByName(streetNames);
+        streetsByTrigram = indexTrigrams(streetNames);
+
+        // Rows grouped by street, each group sorted by house number through one packed long per row
+        int[] counts = new int[streetCount];
+        for (int row = 0; row < store.size(); row++) {
+            counts[store.getStreetCode(row)]++;
+        }
+        long[][] keys = new long[streetCount][];
+        for (int code = 0; code < streetCount; code++) {
+            keys[code] = new long[counts[code]];
+        }
+        int[] filled = new int[streetCount];
+        for (int row = 0; row < store.size(); row++) {
+            int code = store.getStreetCode(row);
+            keys[code][filled[code]++] = (long) store.getHouseNumber(row) << 32 | row;
+        }
+        rowsByStreet = new int[streetCount][];
+        houseNumbersByStreet = new int[streetCount][];
+        for (int code = 0; code < streetCount; code++) {
+            Arrays.sort(keys[code]);
+            rowsByStreet[code] = new int[keys[code].length];
+            houseNumbersByStreet[code] = new int[keys[code].length];
+            for (int i = 0; i < keys[code].length; i++) {
+                rowsByStreet[code][i] = (int) keys[code][i];
+                houseNumbersByStreet[code][i] = (int) (keys[code][i] >> 32);
+            }
+        }
+
+        // Every row by house number as well, for a number typed without a street
+        long[] allKeys = new long[store.size()];
+        for (int row = 0; row < store.size(); row++) {
+            allKeys[row] = (long) store.getHouseNumber(row) << 32 | row;
+        }
+        Arrays.sort(allKeys);
+        rowsByHouseNumber = new int[allKeys.length];
+        houseNumbers = new int[allKeys.length];
+        for (int i = 0; i < allKeys.length; i++) {
+            rowsByHouseNumber[i] = (int) allKeys[i];
+            houseNumbers[i] = (int) (allKeys[i] >> 32);
+        }
+    }
+
+    public PropertyStore getStore() {return store;}
+
+    // Returns the rows best matching the typed text, at most limit of them
+    public int[] search(String text, int limit) {
+        String query = normalize(text);
+        if (query.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+
+        int[] rows = new int[limit];
+        int count = 0;
+        int space = query.indexOf(' ');
+        if (isDigits(query, 0, query.length())) {
+            // A bare number is the start of a house number on any street, then part of a numbered street's name,
+            // so "104" lists 104, 1040-1049 and so on before the properties on 104 STREET
+            count = collectHouseNumbers(houseNumbers, rowsByHouseNumber, query, rows, count);
+            count = collectStreets(query, query, null, rows, count);
+        } else if (space > 0 && isDigits(query, 0, space)) {
+            // "10210 104 ST" is a house number and a street, but "104 ST" may also be the start of a street's name
+            String houseNumberPrefix = query.substring(0, space);
+            String streetQuery = query.substring(space + 1);
+            int[] numberedStreets = matchStreets(streetQuery);
+            for (int street : rankStreets(streetQuery, numberedStreets)) {
+                count = collectHouseNumbers(houseNumbersByStreet[street], rowsByStreet[street], houseNumberPrefix, rows, count);
+                if (count == limit) {
+                    break;
+                }
+            }
+            count = collectStreets(query, houseNumberPrefix, numberedStreets, rows, count);
+        } else {
+            count = collectStreets(query, null, NO_STREETS, rows, count);
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // The text as it is indexed, upper case with anything but letters and digits turned into single spaces
+    public static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (char c : text.toUpperCase(Locale.ROOT).toCharArray()) {
+            if (symbol(c) > 0) {
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(c);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    // Street codes whose normalized name contains the query, or starts with it if it is too short for trigrams
+    private int[] matchStreets(String query) {
+        if (query.length() < 3) {
+            int from = lowerBound(query);
+            int to = from;
+            while (to < streetsByName.length && streetNames[streetsByName[to]].startsWith(query)) {
+                to++;
+            }
+            int[] streets = Arrays.copyOfRange(streetsByName, from, to);
+            Arrays.sort(streets);
+            return streets;
+        }
+
+        // Intersect from the rarest trigram up, so the candidates only get fewer
+        int[][] postings = new int[query.length() - 2][];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = streetsByTrigram[trigram(query, i)];
+            if (postings[i] == null) {
+                return NO_STREETS;
+            }
+        }
+        Arrays.sort(postings, (a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = postings[0];
+        for (int i = 1; i < postings.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, postings[i]);
+        }
+
+        int count = 0;
+        int[] streets = new int[candidates.length];
+        for (int street : candidates) {
+            if (streetNames[street].contains(query)) {
+                streets[count++] = street;
+            }
+        }
+        return Arrays.copyOf(streets, count);
+    }
+
+    // Names starting with the query first, then the rest, each in name order
+    private List<Integer> rankStreets(String query, int[] streets) {
+        List<Integer> starting = new ArrayList<>();
+        List<Integer> containing = new ArrayList<>();
+        for (int street : streets) {
+            (streetNames[street].startsWith(query) ? starting : containing).add(street);
+        }
+        starting.sort((a, b) -> streetNames[a].compareTo(streetNames[b]));
+        containing.sort((a, b) -> streetNames[a].compareTo(streetNames[b]));
+        starting.addAll(containing);
+        return starting;
+    }
+
+    // Rows of the streets matching the query, in rank order. Rows already listed by house number are left out:
+    // those starting with the prefix on the sorted listed streets, or on any street when listedStreets is null
+    private int collectStreets(String query, String listedPrefix, int[] listedStreets, int[] rows, int count) {
+        if (count == rows.length) {
+            return count;
+        }
+        for (int street : rankStreets(query, matchStreets(query))) {
+            if (count == rows.length) {
+                break;
+            }
+            if (listedPrefix == null || (listedStreets != null && Arrays.binarySearch(listedStreets, street) < 0)) {
+                count = collectStreet(street, rows, count);
+                continue;
+            }
+            int[] streetRows = rowsByStreet[street];
+            int[] streetNumbers = houseNumbersByStreet[street];
+            for (int i = 0; i < streetRows.length && count < rows.length; i++) {
+                if (!hasPrefix(streetNumbers[i], listedPrefix)) {
+                    rows[count++] = streetRows[i];
+                }
+            }
+        }
+        return count;
+    }
+
+    private int collectStreet(int street, int[] rows, int count) {
+        int[] streetRows = rowsByStreet[street];
+        int take = Math.min(streetRows.length, rows.length - count);
+        System.arraycopy(streetRows, 0, rows, count, take);
+        return count + take;
+    }
+
+    // House numbers starting with the digits typed lie in a few ranges: 102, 1020-1029, 10200-10299 and so on
+    private static int collectHouseNumbers(int[] houseNumbers, int[] numberRows, String prefix, int[] rows, int count) {
+        if (prefix.length() > 9 || (prefix.length() > 1 && prefix.charAt(0) == '0')) {
+            return count; // Too long for a house number, or with a leading zero no house number has
+        }
+        long low = Long.parseLong(prefix);
+        long high = low + 1;
+        while (low <= Integer.MAX_VALUE && count < rows.length) {
+            int from = lowerBound(houseNumbers, low);
+            int to = lowerBound(houseNumbers, high);
+            for (int i = from; i < to && count < rows.length; i++) {
+                rows[count++] = numberRows[i];
+            }
+            if (low == 0) {
+                break; // "0" is only ever the number 0 itself
+            }
+            low *= 10;
+            high *= 10;
+        }
+        return count;
+    }
+
+    // Whether the house number is one collectHouseNumbers lists for the prefix
+    private static boolean hasPrefix(int houseNumber, String prefix) {
+        if (prefix.length() > 9 || (prefix.length() > 1 && prefix.charAt(0) == '0') || houseNumber < 0) {
+            return false;
+        }
+        long digits = Long.parseLong(prefix);
+        if (digits == 0) {
+            return houseNumber == 0;
+        }
+        long number = houseNumber;
+        while (number > digits) {
+            number /= 10;
+        }
+        return number == digits;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = streetsByName.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (streetNames[streetsByName[middle]].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(int[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] intersect(int[] smaller, int[] larger) {
+        int[] result = new int[smaller.length];
+        int count = 0;
+        for (int value : smaller) {
+            if (Arrays.binarySearch(larger, value) >= 0) {
+                result[count++] = value;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] sortByName(String[] names) {
+        Integer[] codes = new Integer[names.length];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = code;
+        }
+        Arrays.sort(codes, (a, b) -> names[a].compareTo(names[b]));
+        return Arrays.stream(codes).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[][] indexTrigrams(String[] names) {
+        int[] counts = new int[SYMBOLS * SYMBOLS * SYMBOLS];
+        int[] lastStreet = new int[counts.length];
+        Arrays.fill(lastStreet, -1);
+        for (int code = 0; code < names.length; code++) {
+            for (int i = 0; i + 3 <= names[code].length(); i++) {
+                int trigram = trigram(names[code], i);
+                if (lastStreet[trigram] != code) {
+                    lastStreet[trigram] = code;
+                    counts[trigram]++;
+                }
+            }
+        }
+
+        // Streets are visited in code order, so every posting list comes out sorted
+        int[][] postings = new int[counts.length][];
+        int[] filled = new int[counts.length];
+        Arrays.fill(lastStreet, -1);
+        for (int code = 0; code < names.length; code++) {
+            for (int i = 0; i + 3 <= names[code].length(); i++) {
+                int trigram = trigram(names[code], i);
+                if (lastStreet[trigram] != code) {
+                    lastStreet[trigram] = code;
+                    if (postings[trigram] == null) {
+                        postings[trigram] = new int[counts[trigram]];
+                    }
+                    postings[trigram][filled[trigram]++] = code;
+                }
+            }
+        }
+        return postings;
+    }
+
+    private static int trigram(String text, int start) {
+        return (symbol(text.charAt(start)) * SYMBOLS + symbol(text.charAt(start + 1))) * SYMBOLS + symbol(text.charAt(start + 2));
+    }
+
+    // 0 for a space or anything not indexed, 1-10 for digits, 11-36 for letters
+    private static int symbol(char c) {
+        if (c >= '0' && c <= '9') {
+            return 1 + c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return 11 + c - 'A';
+        }
+        return 0;
+    }
+
+    private static boolean isDigits(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mycompany.app.model;
+
+// A KllSketch of the assessed values for every neighborhood and garage value of a store, with rollups by
+// ward and by garage so large selections merge only a few cells. Only percentiles come from here, the other
+// statistics are worked out exactly from the result rows
+public class AggregateCube {
+    private final PropertyStore store;
+    private final int garageCount;
+    private final Cells cells;                 // By neighborhood code and garage
+    private final Cells wardRollups;           // By ward code and garage
+    private final Cells garageRollups;         // By garage
+    private final int[] neighborhoodsPerWard;  // How many neighborhood codes each ward has
+
+    public AggregateCube(PropertyStore store) {
+        this.store = store;
+        NeighborhoodDictionary neighborhoods = store.getNeighborhoods();
+        int wardCount = store.getWards().size();
+        garageCount = store.getGarages().size();
+        cells = new Cells(neighborhoods.size() * garageCount);
+        wardRollups = new Cells(wardCount * garageCount);
+        garageRollups = new Cells(garageCount);
+
+        neighborhoodsPerWard = new int[wardCount];
+        for (int code = 0; code < neighborhoods.size(); code++) {
+            neighborhoodsPerWard[neighborhoods.getWardCode(code)]++;
+        }
+
+        for (int row = 0; row < store.size(); row++) {
+            int neighborhood = store.getNeighborhoodCode(row);
+            int garage = store.getGarageCode(row);
+            long value = store.getAssessedValue(row);
+            cells.add(neighborhood * garageCount + garage, value);
+            wardRollups.add(neighborhoods.getWardCode(neighborhood) * garageCount + garage, value);
+            garageRollups.add(garage, value);
+        }
+    }
+
+    public PropertyStore getStore() {return store;}
+
+    // Merges the cells of the selected neighborhood codes and garage codes
+    public KllSketch aggregate(boolean[] neighborhoods, boolean[] garages) {
+        KllSketch sketch = new KllSketch();
+        for (int garage = 0; garage < garageCount; garage++) {
+            if (garages != null && !garages[garage]) {
+                continue;
+            }
+            if (neighborhoods == null) {
+                garageRollups.mergeInto(garage, sketch);
+            } else {
+                mergeNeighborhoods(neighborhoods, garage, sketch);
+            }
+        }
+        return sketch;
+    }
+
+    // Wards with every neighborhood selected come from their rollup, the rest neighborhood by neighborhood
+    private void mergeNeighborhoods(boolean[] neighborhoods, int garage, KllSketch sketch) {
+        NeighborhoodDictionary dictionary = store.getNeighborhoods();
+        int[] selectedPerWard = new int[neighborhoodsPerWard.length];
+        for (int neighborhood = 0; neighborhood < dictionary.size(); neighborhood++) {
+            if (neighborhoods[neighborhood]) {
+                selectedPerWard[dictionary.getWardCode(neighborhood)]++;
+            }
+        }
+        for (int ward = 0; ward < selectedPerWard.length; ward++) {
+            if (selectedPerWard[ward] > 0 && selectedPerWard[ward] == neighborhoodsPerWard[ward]) {
+                wardRollups.mergeInto(ward * garageCount + garage, sketch);
+            }
+        }
+        for (int neighborhood = 0; neighborhood < dictionary.size(); neighborhood++) {
+            int ward = dictionary.getWardCode(neighborhood);
+            if (neighborhoods[neighborhood] && selectedPerWard[ward] < neighborhoodsPerWard[ward]) {
+                cells.mergeInto(neighborhood * garageCount + garage, sketch);
+            }
+        }
+    }
+
+    // A sketch per cell, left null until a row falls in the cell
+    private static class Cells {
+        private final KllSketch[] sketches;
+
+        Cells(int count) {
+            sketches = new KllSketch[count];
+        }
+
+        void add(int cell, long value) {
+            if (sketches[cell] == null) {
+                sketches[cell] = new KllSketch();
+            }
+            sketches[cell].update(value);
+        }
+
+        void mergeInto(int cell, KllSketch sketch) {
+            if (sketches[cell] != null) {
+                sketch.merge(sketches[cell]);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.mycompany.app.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Hands out one canonical AssessmentClass per combination of assessment class names and percentages
+public class AssessmentClassDictionary {
+    public static final int SLOTS = 3;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StringDictionary names = new StringDictionary();
+    private final List<AssessmentClass> assessmentClasses = new ArrayList<>();
+    private int[] percentages = new int[INITIAL_CAPACITY * SLOTS]; // Indexed by code * SLOTS + slot
+    private int[] nameCodes = new int[INITIAL_CAPACITY * SLOTS];
+
+    // Open-addressing table from a combination to its code, a slot holds the code plus one
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    // Returns the code of the given combination, adding it to the dictionary if it is new
+    public int intern(int percentage1, int percentage2, int percentage3, String name1, String name2, String name3) {
+        return intern(percentage1, percentage2, percentage3, names.intern(name1), names.intern(name2), names.intern(name3));
+    }
+
+    // Returns the code of the combination whose names are encoded in the ranges of the buffer, adding it if it is new
+    public int intern(int percentage1, int percentage2, int percentage3, ByteBuffer buffer,
+                      int name1Start, int name1End, int name2Start, int name2End, int name3Start, int name3End) {
+        return intern(percentage1, percentage2, percentage3, names.intern(buffer, name1Start, name1End),
+                names.intern(buffer, name2Start, name2End), names.intern(buffer, name3Start, name3End));
+    }
+
+    // Returns the code of the given combination of name codes, adding it to the dictionary if it is new
+    public int intern(int percentage1, int percentage2, int percentage3, int nameCode1, int nameCode2, int nameCode3) {
+        int hash = hash(percentage1, percentage2, percentage3, nameCode1, nameCode2, nameCode3);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask) {
+            int code = table[slot] - 1;
+            int base = code * SLOTS;
+            if (percentages[base] == percentage1 && percentages[base + 1] == percentage2 && percentages[base + 2] == percentage3
+                    && nameCodes[base] == nameCode1 && nameCodes[base + 1] == nameCode2 && nameCodes[base + 2] == nameCode3) {
+                return code;
+            }
+        }
+
+        int code = assessmentClasses.size();
+        assessmentClasses.add(new AssessmentClass(percentage1, percentage2, percentage3,
+                names.valueOf(nameCode1), names.valueOf(nameCode2), names.valueOf(nameCode3)));
+        int base = code * SLOTS;
+        if (base + SLOTS > percentages.length) {
+            percentages = Arrays.copyOf(percentages, percentages.length * 2);
+            nameCodes = Arrays.copyOf(nameCodes, nameCodes.length * 2);
+        }
+        percentages[base] = percentage1;
+        percentages[base + 1] = percentage2;
+        percentages[base + 2] = percentage3;
+        nameCodes[base] = nameCode1;
+        nameCodes[base + 1] = nameCode2;
+        nameCodes[base + 2] = nameCode3;
+
+        if (assessmentClasses.size() * 2 > table.length) {
+            rehash();
+        } else {
+            table[slot] = code + 1;
+        }
+        return code;
+    }
+
+    public AssessmentClass valueOf(int code) {
+        return assessmentClasses.get(code);
+    }
+
+    public int getPercentage(int code, int slot) {return percentages[code * SLOTS + slot];}
+    public int getNameCode(int code, int slot) {return nameCodes[code * SLOTS + slot];}
+    public StringDictionary getNames() {return names;}
+
+    public int size() {
+        return assessmentClasses.size();
+    }
+
+    // Adds every combination of another dictionary to this one
+    public int[] internAll(AssessmentClassDictionary other) {
+        int[] nameRemap = names.internAll(other.names);
+        int[] remap = new int[other.size()];
+        for (int code = 0; code < remap.length; code++) {
+            remap[code] = intern(other.getPercentage(code, 0), other.getPercentage(code, 1), other.getPercentage(code, 2),
+                    nameRemap[other.getNameCode(code, 0)], nameRemap[other.getNameCode(code, 1)], nameRemap[other.getNameCode(code, 2)]);
+        }
+        return remap;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int code = 0; code < assessmentClasses.size(); code++) {
+            int base = code * SLOTS;
+            int slot = hash(percentages[base], percentages[base + 1], percentages[base + 2],
+                    nameCodes[base], nameCodes[base + 1], nameCodes[base + 2]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+    }
+
+    private static int hash(int percentage1, int percentage2, int percentage3, int nameCode1, int nameCode2, int nameCode3) {
+        int hash = percentage1;
+        hash = 31 * hash + percentage2;
+        hash = 31 * hash + percentage3;
+        hash = 31 * hash + nameCode1;
+        hash = 31 * hash + nameCode2;
+        hash = 31 * hash + nameCode3;
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,131 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Finds rows by the share of their assessment in a class, such as "RESIDENTIAL at 50% or more"
+public class AssessmentClassIndex {
+    private final PropertyStore store;
+    private final int[][] rows;   // Per class name code, the rows listing it by share, highest first
+    private final int[][] shares; // The share of each of those rows, at the same positions
+
+    public AssessmentClassIndex(PropertyStore store) {
+        this.store = store;
+        AssessmentClassDictionary combinations = store.getAssessmentClasses();
+        int nameCount = store.getAssessmentClassNames().size();
+
+        // Each combination's share of every name, so rows only look up their combination
+        int[][] combinationShares = new int[combinations.size()][];
+        for (int code = 0; code < combinationShares.length; code++) {
+            combinationShares[code] = sharesOf(combinations, code, nameCount);
+        }
+
+        int[] counts = new int[nameCount];
+        for (int row = 0; row < store.size(); row++) {
+            for (int nameCode = 0; nameCode < nameCount; nameCode++) {
+                if (combinationShares[store.getAssessmentClassCode(row)][nameCode] >= 0) {
+                    counts[nameCode]++;
+                }
+            }
+        }
+
+        // The share and row go into one long so the postings sort without boxing, highest share then lowest row first
+        long[][] keys = new long[nameCount][];
+        for (int nameCode = 0; nameCode < nameCount; nameCode++) {
+            keys[nameCode] = new long[counts[nameCode]];
+        }
+        int[] filled = new int[nameCount];
+        for (int row = 0; row < store.size(); row++) {
+            int[] rowShares = combinationShares[store.getAssessmentClassCode(row)];
+            for (int nameCode = 0; nameCode < nameCount; nameCode++) {
+                if (rowShares[nameCode] >= 0) {
+                    keys[nameCode][filled[nameCode]++] = (long) (Integer.MAX_VALUE - rowShares[nameCode]) << 32 | row;
+                }
+            }
+        }
+
+        rows = new int[nameCount][];
+        shares = new int[nameCount][];
+        for (int nameCode = 0; nameCode < nameCount; nameCode++) {
+            long[] postings = keys[nameCode];
+            Arrays.sort(postings);
+            rows[nameCode] = new int[postings.length];
+            shares[nameCode] = new int[postings.length];
+            for (int i = 0; i < postings.length; i++) {
+                rows[nameCode][i] = (int) postings[i];
+                shares[nameCode][i] = Integer.MAX_VALUE - (int) (postings[i] >>> 32);
+            }
+        }
+    }
+
+    public PropertyStore getStore() {return store;}
+
+    // Returns the number of rows whose share of the class is at least the given percentage
+    public int countRows(String assessmentClass, int minimumShare) {
+        int nameCode = store.getAssessmentClassNames().codeOf(assessmentClass);
+        return nameCode < 0 ? 0 : cutOff(shares[nameCode], minimumShare);
+    }
+
+    // Calls the action with every row whose share of the class is at least the percentage, highest share first
+    public void forEachRow(String assessmentClass, int minimumShare, IntConsumer action) {
+        int nameCode = store.getAssessmentClassNames().codeOf(assessmentClass);
+        if (nameCode < 0) {
+            return;
+        }
+        int end = cutOff(shares[nameCode], minimumShare);
+        for (int i = 0; i < end; i++) {
+            action.accept(rows[nameCode][i]);
+        }
+    }
+
+    // The share of each class combination of the store in the class, or -1 where the combination doesn't list it
+    public static int[] sharesOfCombinations(PropertyStore store, String assessmentClass) {
+        AssessmentClassDictionary combinations = store.getAssessmentClasses();
+        int nameCode = store.getAssessmentClassNames().codeOf(assessmentClass);
+        int[] combinationShares = new int[combinations.size()];
+        Arrays.fill(combinationShares, -1);
+        if (nameCode >= 0) {
+            for (int code = 0; code < combinationShares.length; code++) {
+                combinationShares[code] = shareOf(combinations, code, nameCode);
+            }
+        }
+        return combinationShares;
+    }
+
+    // The number of postings with at least the minimum share, they come first since shares are descending
+    private static int cutOff(int[] sortedShares, int minimumShare) {
+        int low = 0;
+        int high = sortedShares.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedShares[middle] >= minimumShare) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] sharesOf(AssessmentClassDictionary combinations, int code, int nameCount) {
+        int[] nameShares = new int[nameCount];
+        Arrays.fill(nameShares, -1);
+        for (int slot = 0; slot < PropertyStore.ASSESSMENT_CLASS_SLOTS; slot++) {
+            int nameCode = combinations.getNameCode(code, slot);
+            nameShares[nameCode] = shareOf(combinations, code, nameCode);
+        }
+        return nameShares;
+    }
+
+    // The summed percentage of the slots naming the class, or -1 if no slot lists it with a percentage
+    private static int shareOf(AssessmentClassDictionary combinations, int code, int nameCode) {
+        int share = -1;
+        for (int slot = 0; slot < PropertyStore.ASSESSMENT_CLASS_SLOTS; slot++) {
+            int percentage = combinations.getPercentage(code, slot);
+            if (combinations.getNameCode(code, slot) == nameCode && percentage != -1) {
+                share = Math.max(share, 0) + percentage;
+            }
+        }
+        return share;
+    }
+}
@@ -0,0 +1,217 @@
+package com.mycompany.app.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+// Parses rows of the property assessment CSV straight from a byte buffer
+public class CsvRowParser {
+    public static final int FIELD_COUNT = 18;
+
+    // Doubles with at most 15 digits and at most 22 fraction digits can be built with a single
+    // correctly rounded division, which gives the same result as Double.parseDouble
+    private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Strings are decoded with the same charset FileReader uses
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final int[] fieldStarts = new int[FIELD_COUNT];
+    private final int[] fieldEnds = new int[FIELD_COUNT];
+
+    // Parses every line in the given range of the buffer and adds the resulting rows
+    public void parseLines(ByteBuffer buffer, int start, int end, PropertyStore.Builder builder) throws IOException {
+        int pointSource = builder.addPointSource(buffer, CHARSET);
+        int position = start;
+        while (position < end) {
+            int lineEnd = findLineEnd(buffer, position, end);
+            splitFields(buffer, position, lineEnd);
+            parseRow(buffer, pointSource, builder);
+            position = skipLineTerminator(buffer, lineEnd, end);
+        }
+    }
+
+    // Finds the start of the line following the one starting at start
+    public static int skipLine(ByteBuffer buffer, int start, int end) {
+        return skipLineTerminator(buffer, findLineEnd(buffer, start, end), end);
+    }
+
+    // Finds the index just past the last '\n' in the range, or start if it has none
+    public static int lastLineBreak(ByteBuffer buffer, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return start;
+    }
+
+    // Lines end at '\n', '\r' or "\r\n", the same as BufferedReader.readLine
+    private static int findLineEnd(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int skipLineTerminator(ByteBuffer buffer, int lineEnd, int end) {
+        if (lineEnd >= end) {
+            return end;
+        }
+        if (buffer.get(lineEnd) == '\r' && lineEnd + 1 < end && buffer.get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    private void splitFields(ByteBuffer buffer, int lineStart, int lineEnd) throws IOException {
+        int field = 0;
+        fieldStarts[0] = lineStart;
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer.get(i) == ',') {
+                fieldEnds[field++] = i;
+                if (field == FIELD_COUNT) {
+                    return; // Extra columns are ignored, like the extra tokens of split()
+                }
+                fieldStarts[field] = i + 1;
+            }
+        }
+        fieldEnds[field++] = lineEnd;
+        if (field < FIELD_COUNT) {
+            throw new IOException("Error: malformed row at byte " + lineStart + ", expected " + FIELD_COUNT + " fields but found " + field + ".");
+        }
+    }
+
+    // Repeated strings are looked up in the builder's dictionaries by their bytes, so only
+    // the first occurrence of each value creates a String. The point is not decoded at all,
+    // the store keeps a reference to its bytes in the buffer.
+    private void parseRow(ByteBuffer buffer, int pointSource, PropertyStore.Builder builder) {
+        builder.addRow(
+                parseInt(buffer, 0),                                    // Account number
+                parseInt(buffer, 1),                                    // Suite
+                parseInt(buffer, 2),                                    // House number
+                internString(buffer, 3, builder.getStreets()),          // Street name
+                internString(buffer, 4, builder.getGarages()),          // Garage
+                builder.getNeighborhoods().intern(parseInt(buffer, 5),  // Neighborhood ID, name and ward
+                        buffer, fieldStarts[6], fieldEnds[6], fieldStarts[7], fieldEnds[7]),
+                parseLong(buffer, 8),                                   // Assessed value
+                parseDouble(buffer, 9),                                 // Latitude
+                parseDouble(buffer, 10),                                // Longitude
+                pointSource, fieldStarts[11], fieldEnds[11],            // Point
+                builder.getAssessmentClasses().intern(parseInt(buffer, 12), // Assessment class percentages and names
+                        parseInt(buffer, 13), parseInt(buffer, 14), buffer,
+                        fieldStarts[15], fieldEnds[15], fieldStarts[16], fieldEnds[16], fieldStarts[17], fieldEnds[17]));
+    }
+
+    private int internString(ByteBuffer buffer, int field, StringDictionary dictionary) {
+        return dictionary.intern(buffer, fieldStarts[field], fieldEnds[field]);
+    }
+
+    private int parseInt(ByteBuffer buffer, int field) {
+        long value = parseLong(buffer, field);
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    // Accumulates negatively like Long.parseLong so that Long.MIN_VALUE parses without overflow
+    private long parseLong(ByteBuffer buffer, int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (start == end) {
+            return -1;
+        }
+
+        int i = start;
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) {
+                return -1;
+            }
+        }
+
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return buffer.get(i) < 0 ? parseLongSlow(buffer, start, end) : -1;
+            }
+            if (result < multiplyLimit) {
+                return -1;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return -1;
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private double parseDouble(ByteBuffer buffer, int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                // Exponents, whitespace, NaN, hex and so on are left to Double.parseDouble
+                return parseDoubleSlow(buffer, start, end);
+            }
+        }
+
+        if (digits == 0 || digits > MAX_FAST_DOUBLE_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseDoubleSlow(buffer, start, end);
+        }
+
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : (double) mantissa;
+        return negative ? -value : value;
+    }
+
+    private long parseLongSlow(ByteBuffer buffer, int start, int end) {
+        try {
+            return Long.parseLong(decode(buffer, start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private double parseDoubleSlow(ByteBuffer buffer, int start, int end) {
+        try {
+            return Double.parseDouble(decode(buffer, start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes, 0, bytes.length);
+        return new String(bytes, CHARSET);
+    }
+}
@@ -0,0 +1,92 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+// The sorted distinct values of each filterable field of a store, with the number of rows that have each
+public class DistinctValueCatalog {
+    public static final List<String> FILTER_TYPES = List.of("Neighborhood", "Assessment Class", "Ward");
+
+    private final Map<String, Values> catalog;
+
+    public DistinctValueCatalog(PropertyStore store) {
+        int[] neighborhoodCounts = countRows(store, store.getNeighborhoodNames().size(), store::getNeighborhoodNameCode);
+        int[] wardCounts = countRows(store, store.getWards().size(), store::getWardCode);
+
+        // Rows are counted per class combination first, then each combination adds its count to the classes it names
+        AssessmentClassDictionary combinations = store.getAssessmentClasses();
+        int[] combinationCounts = countRows(store, combinations.size(), store::getAssessmentClassCode);
+        int[] assessmentClassCounts = new int[store.getAssessmentClassNames().size()];
+        for (int code = 0; code < combinationCounts.length; code++) {
+            for (int slot = 0; slot < PropertyStore.ASSESSMENT_CLASS_SLOTS; slot++) {
+                int nameCode = combinations.getNameCode(code, slot);
+                if (!namedInEarlierSlot(combinations, code, slot, nameCode)) {
+                    assessmentClassCounts[nameCode] += combinationCounts[code];
+                }
+            }
+        }
+        int emptyName = store.getAssessmentClassNames().codeOf("");
+        if (emptyName >= 0) {
+            assessmentClassCounts[emptyName] = 0;
+        }
+
+        catalog = Map.of(
+                "Neighborhood", Values.of(store.getNeighborhoodNames(), neighborhoodCounts),
+                "Assessment Class", Values.of(store.getAssessmentClassNames(), assessmentClassCounts),
+                "Ward", Values.of(store.getWards(), wardCounts)
+        );
+    }
+
+    // Returns the distinct values of a filter type in sorted order, or an empty list for an unknown type
+    public List<String> getValues(String filterType) {
+        Values values = filterType == null ? null : catalog.get(filterType);
+        return values == null ? List.of() : List.of(values.values());
+    }
+
+    // Returns the number of rows with the given value, or 0 if no row has it
+    public int getCount(String filterType, String value) {
+        Values values = filterType == null ? null : catalog.get(filterType);
+        if (values == null || value == null) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(values.values(), value);
+        return index < 0 ? 0 : values.counts()[index];
+    }
+
+    private static int[] countRows(PropertyStore store, int codeCount, IntUnaryOperator codeOfRow) {
+        int[] counts = new int[codeCount];
+        for (int row = 0; row < store.size(); row++) {
+            counts[codeOfRow.applyAsInt(row)]++;
+        }
+        return counts;
+    }
+
+    private static boolean namedInEarlierSlot(AssessmentClassDictionary combinations, int code, int slot, int nameCode) {
+        for (int earlier = 0; earlier < slot; earlier++) {
+            if (combinations.getNameCode(code, earlier) == nameCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The values with at least one row, sorted, and their counts at the same positions
+    private record Values(String[] values, int[] counts) {
+        static Values of(StringDictionary dictionary, int[] counts) {
+            int[] codes = IntStream.range(0, counts.length)
+                    .filter(code -> counts[code] > 0)
+                    .boxed()
+                    .sorted(Comparator.comparing(dictionary::valueOf))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            return new Values(
+                    Arrays.stream(codes).mapToObj(dictionary::valueOf).toArray(String[]::new),
+                    Arrays.stream(codes).map(code -> counts[code]).toArray()
+            );
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// A KLL quantile sketch of assessed values, answering percentiles from a few hundred kept values however many were added
+// Ranks are within getNormalizedRankError of the count with 99% confidence, exact until more than k values are added
+public class KllSketch {
+    public static final int DEFAULT_K = 200;
+
+    // Each level below the top may hold 2/3 of the level above it, but never fewer than two values
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+    private static final int MIN_LEVEL_CAPACITY = 2;
+
+    private final int k;
+    private long[][] levels = {new long[MIN_LEVEL_CAPACITY]};
+    private int[] sizes = {0};
+    private int retained;
+    private int capacity;
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long random = 0x9E3779B97F4A7C15L; // Xorshift state for picking which values move up
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    // k is the accuracy parameter, the capacity of the top level, error shrinks about as 1/k
+    public KllSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("k must be at least 8, was " + k + ".");
+        }
+        this.k = k;
+        updateCapacity();
+    }
+
+    public void update(long value) {
+        append(0, value);
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        while (retained > capacity) {
+            compress();
+        }
+    }
+
+    // Adds every value of another sketch to this one
+    public KllSketch merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with k " + k + " and " + other.k + ".");
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        while (retained > capacity) {
+            compress();
+        }
+        return this;
+    }
+
+    public int getK() {return k;}
+    public long getCount() {return count;}
+    public boolean isEmpty() {return count == 0;}
+    // The values kept, which bounds the memory used
+    public int getRetainedValues() {return retained;}
+
+    public long getMin() {
+        checkNotEmpty();
+        return min;
+    }
+
+    public long getMax() {
+        checkNotEmpty();
+        return max;
+    }
+
+    // How far off, as a fraction of the count, a returned value's rank may be with 99% confidence
+    public double getNormalizedRankError() {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    public long getQuantile(double fraction) {
+        return getQuantiles(fraction)[0];
+    }
+
+    // The nearest rank value of each fraction from 0 to 1, 0 giving the minimum and 1 the maximum
+    public long[] getQuantiles(double... fractions) {
+        checkNotEmpty();
+
+        // Every kept value once, in order, with the running count of the values it stands for
+        long[] values = new long[retained];
+        long[] cumulativeWeights = new long[retained];
+        long[][] sortedLevels = new long[levels.length][];
+        int[] next = new int[levels.length];
+        for (int level = 0; level < levels.length; level++) {
+            sortedLevels[level] = Arrays.copyOf(levels[level], sizes[level]);
+            Arrays.sort(sortedLevels[level]);
+        }
+        long weight = 0;
+        for (int i = 0; i < retained; i++) {
+            int lowest = -1;
+            for (int level = 0; level < levels.length; level++) {
+                if (next[level] < sortedLevels[level].length
+                        && (lowest < 0 || sortedLevels[level][next[level]] < sortedLevels[lowest][next[lowest]])) {
+                    lowest = level;
+                }
+            }
+            values[i] = sortedLevels[lowest][next[lowest]++];
+            weight += 1L << lowest;
+            cumulativeWeights[i] = weight;
+        }
+
+        long[] quantiles = new long[fractions.length];
+        for (int q = 0; q < fractions.length; q++) {
+            double fraction = fractions[q];
+            if (!(fraction >= 0 && fraction <= 1)) {
+                throw new IllegalArgumentException("Fractions must be from 0 to 1, was " + fraction + ".");
+            }
+            if (fraction == 0) {
+                quantiles[q] = min;
+            } else if (fraction == 1) {
+                quantiles[q] = max;
+            } else {
+                long rank = Math.max(1, (long) Math.ceil(fraction * count));
+                int position = Arrays.binarySearch(cumulativeWeights, rank);
+                position = position >= 0 ? position : Math.min(-position - 1, retained - 1);
+                quantiles[q] = Math.max(min, Math.min(max, values[position]));
+            }
+        }
+        return quantiles;
+    }
+
+    // Halves the lowest full level into the one above it
+    private void compress() {
+        int level = 0;
+        while (sizes[level] < levelCapacity(level)) {
+            level++;
+        }
+
+        // An odd value out stays behind, the rest are sorted and every other one moves up
+        long[] values = levels[level];
+        int size = sizes[level];
+        int start = size % 2;
+        Arrays.sort(values, start, size);
+        for (int i = start + nextBit(); i < size; i += 2) {
+            append(level + 1, values[i]);
+        }
+        sizes[level] = start;
+        retained -= size - start;
+    }
+
+    private void updateCapacity() {
+        capacity = 0;
+        for (int level = 0; level < levels.length; level++) {
+            capacity += levelCapacity(level);
+        }
+    }
+
+    private int levelCapacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void append(int level, long value) {
+        if (level >= levels.length) {
+            // A new top level, which lowers the capacity of every level below it
+            int oldLevels = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            for (int l = oldLevels; l < levels.length; l++) {
+                levels[l] = new long[MIN_LEVEL_CAPACITY];
+            }
+            updateCapacity();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        }
+        levels[level][sizes[level]++] = value;
+        retained++;
+    }
+
+    private int nextBit() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random & 1);
+    }
+
+    private void checkNotEmpty() {
+        if (count == 0) {
+            throw new NoSuchElementException("No values have been sketched.");
+        }
+    }
+}
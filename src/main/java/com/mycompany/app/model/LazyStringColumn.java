@@ -0,0 +1,152 @@
+package com.mycompany.app.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A column of strings that are only decoded when they are asked for
+public class LazyStringColumn {
+    public static final LazyStringColumn EMPTY = new Builder().build();
+
+    private final ByteBuffer[] sources;
+    private final Charset[] charsets;
+    private final long[] positions; // Source index in the high 32 bits, byte offset in the low 32 bits
+    private final int[] lengths;
+    private final int size;
+
+    private LazyStringColumn(ByteBuffer[] sources, Charset[] charsets, long[] positions, int[] lengths, int size) {
+        this.sources = sources;
+        this.charsets = charsets;
+        this.positions = positions;
+        this.lengths = lengths;
+        this.size = size;
+    }
+
+    // Creates a column over one buffer holding the UTF-8 bytes of every row back to back
+    public static LazyStringColumn ofUtf8(ByteBuffer bytes, int[] lengths) {
+        long[] positions = new long[lengths.length];
+        long offset = 0;
+        for (int row = 0; row < lengths.length; row++) {
+            positions[row] = offset;
+            offset += lengths[row];
+        }
+        if (offset > bytes.limit()) {
+            throw new IllegalArgumentException("Lengths add up to " + offset + " bytes but the buffer only has " + bytes.limit() + ".");
+        }
+        return new LazyStringColumn(new ByteBuffer[]{bytes}, new Charset[]{StandardCharsets.UTF_8}, positions, lengths, lengths.length);
+    }
+
+    public int size() {return size;}
+
+    public int getLength(int row) {return lengths[row];}
+
+    public String get(int row) {
+        int length = lengths[row];
+        if (length == 0) {
+            return "";
+        }
+        int source = (int) (positions[row] >>> 32);
+        byte[] bytes = new byte[length];
+        sources[source].get((int) positions[row], bytes, 0, length);
+        return new String(bytes, charsets[source]);
+    }
+
+    // Collects the rows of a column, either as references into source buffers or as strings
+    public static class Builder {
+        private static final int DEFAULT_CAPACITY = 1024;
+
+        private final List<ByteBuffer> sources = new ArrayList<>();
+        private final List<Charset> charsets = new ArrayList<>();
+        private long[] positions;
+        private int[] lengths;
+        private int size;
+
+        // Values added as strings are encoded into a heap buffer, which becomes a source once it is sealed
+        private byte[] heap;
+        private int heapLength;
+        private int heapSource = -1;
+
+        public Builder() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public Builder(int capacity) {
+            positions = new long[Math.max(capacity, 1)];
+            lengths = new int[positions.length];
+        }
+
+        public int size() {return size;}
+
+        // Registers a buffer that later rows can refer to
+        public int addSource(ByteBuffer buffer, Charset charset) {
+            sources.add(buffer.duplicate());
+            charsets.add(charset);
+            return sources.size() - 1;
+        }
+
+        // Adds a row whose value is encoded in the given range of a registered source
+        public void addReference(int source, int start, int end) {
+            ensureCapacity(size + 1);
+            positions[size] = (long) source << 32 | start;
+            lengths[size] = end - start;
+            size++;
+        }
+
+        public void add(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (heapSource < 0) {
+                heap = new byte[Math.max(bytes.length, 1024)];
+                heapSource = addSource(ByteBuffer.allocate(0), StandardCharsets.UTF_8);
+            }
+            if (heapLength + bytes.length > heap.length) {
+                heap = Arrays.copyOf(heap, Math.max(heapLength + bytes.length, heap.length + (heap.length >> 1)));
+            }
+            int start = heapLength;
+            System.arraycopy(bytes, 0, heap, start, bytes.length);
+            heapLength += bytes.length;
+            addReference(heapSource, start, heapLength);
+        }
+
+        // Appends every row of another builder, keeping its rows as references into its sources
+        public void addAll(Builder other) {
+            other.sealHeap();
+            int sourceOffset = sources.size();
+            sources.addAll(other.sources);
+            charsets.addAll(other.charsets);
+
+            ensureCapacity(size + other.size);
+            for (int i = 0; i < other.size; i++) {
+                positions[size + i] = other.positions[i] + ((long) sourceOffset << 32);
+            }
+            System.arraycopy(other.lengths, 0, lengths, size, other.size);
+            size += other.size;
+        }
+
+        public LazyStringColumn build() {
+            sealHeap();
+            return new LazyStringColumn(sources.toArray(new ByteBuffer[0]), charsets.toArray(new Charset[0]),
+                    Arrays.copyOf(positions, size), Arrays.copyOf(lengths, size), size);
+        }
+
+        // Turns the heap into a source, values added afterwards start a new heap
+        private void sealHeap() {
+            if (heapSource >= 0) {
+                sources.set(heapSource, ByteBuffer.wrap(Arrays.copyOf(heap, heapLength)));
+                heap = null;
+                heapLength = 0;
+                heapSource = -1;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > positions.length) {
+                int newCapacity = Math.max(capacity, positions.length + (positions.length >> 1));
+                positions = Arrays.copyOf(positions, newCapacity);
+                lengths = Arrays.copyOf(lengths, newCapacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.mycompany.app.model;
+
+// Receives progress updates while property data is being loaded, possibly from background loader threads
+@FunctionalInterface
+public interface LoadProgressListener {
+    LoadProgressListener NONE = (workDone, totalWork) -> {};
+
+    // Called whenever another part of the data has been loaded
+    void onProgress(long workDone, long totalWork);
+}
@@ -6,19 +6,36 @@ public class Location {
     // Instance variables:
     private final double lat;
     private final double lng;
-    private final String point;
+    private String point;
+    private final LazyStringColumn pointColumn; // Where the point is decoded from, when it was not given as a string
+    private final int pointRow;
 
-    // Constructor:
+    // Constructors:
     public Location(double lat, double lng, String point) {
         this.lat = lat;
         this.lng = lng;
         this.point = point;
+        this.pointColumn = null;
+        this.pointRow = -1;
+    }
+
+    // The point is decoded from the column the first time it is asked for
+    Location(double lat, double lng, LazyStringColumn pointColumn, int pointRow) {
+        this.lat = lat;
+        this.lng = lng;
+        this.pointColumn = pointColumn;
+        this.pointRow = pointRow;
     }
 
     // Getters:
     public double getLat() {return lat;}
     public double getLng() {return lng;}
-    public String getPoint() {return point;}
+    public String getPoint() {
+        if (point == null && pointColumn != null) {
+            point = pointColumn.get(pointRow);
+        }
+        return point;
+    }
 
     // Predicates:
     private static final Predicate<Double> validCoord = coord -> coord >= -90 && coord <= 180 && coord != -1;
@@ -47,7 +64,7 @@ public class Location {
         Location location = (Location) o;
         if (Double.compare(location.lat, lat) != 0) return false;
         if (Double.compare(location.lng, lng) != 0) return false;
-        return point.equals(location.point);
+        return getPoint().equals(location.getPoint());
     }
 
     @Override
@@ -55,7 +72,7 @@ public class Location {
         int result;
         result = Double.hashCode(lat);
         result = 31 * result + Double.hashCode(lng);
-        result = 31 * result + point.hashCode();
+        result = 31 * result + getPoint().hashCode();
         return result;
     }
 }
@@ -0,0 +1,59 @@
+package com.mycompany.app.model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Loads the property assessment CSV by memory-mapping it and parsing the rows straight from the mapped bytes
+public class MappedCsvLoader {
+    // Files larger than this are mapped one window at a time, each ending on a line break
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    private final long windowSize;
+
+    public MappedCsvLoader() {
+        this(MAX_WINDOW_SIZE);
+    }
+
+    public MappedCsvLoader(long windowSize) {
+        this.windowSize = Math.min(windowSize, MAX_WINDOW_SIZE);
+    }
+
+    // Loads every record of the CSV file, skipping the header line
+    public PropertyStore load(Path csvPath) throws IOException {
+        PropertyStore.Builder builder = new PropertyStore.Builder();
+        CsvRowParser parser = new CsvRowParser();
+
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            boolean headerSkipped = false;
+
+            while (position < size) {
+                long mappedSize = Math.min(windowSize, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, mappedSize);
+
+                int end = (int) mappedSize;
+                if (position + mappedSize < size) {
+                    end = CsvRowParser.lastLineBreak(window, 0, end);
+                    if (end == 0) {
+                        throw new IOException("Error: line at byte " + position + " is longer than the mapping window.");
+                    }
+                }
+
+                int start = 0;
+                if (!headerSkipped) {
+                    start = CsvRowParser.skipLine(window, 0, end); // Skip the first header line
+                    headerSkipped = true;
+                }
+
+                parser.parseLines(window, start, end, builder);
+                position += end;
+            }
+        }
+
+        return builder.build();
+    }
+}
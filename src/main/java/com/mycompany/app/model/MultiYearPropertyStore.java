@@ -0,0 +1,217 @@
+package com.mycompany.app.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+// Several years of property assessments kept as one full base year and a set of changes for each later year
+public class MultiYearPropertyStore {
+    private final int baseYear;
+    private final PropertyStore base;
+    private final AccountIndex baseIndex;
+    private final SortedMap<Integer, YearChanges> years = new TreeMap<>();
+
+    // Sums of the base assessed values per neighborhood name code and per ward code, built when first asked for
+    private long[] baseNeighborhoodSums;
+    private long[] baseWardSums;
+
+    public MultiYearPropertyStore(int baseYear, PropertyStore base) {
+        this.baseYear = baseYear;
+        this.base = base;
+        this.baseIndex = base.getAccountIndex();
+    }
+
+    // Adds a later year, keeping only how it differs from the base year
+    public void addYear(int year, PropertyStore store) {
+        if (year <= baseYear) {
+            throw new IllegalArgumentException("Year " + year + " is not after the base year " + baseYear + ".");
+        }
+        if (years.containsKey(year)) {
+            throw new IllegalArgumentException("Year " + year + " has already been added.");
+        }
+
+        AccountIndex yearIndex = new AccountIndex(store);
+        IntList changedRows = new IntList();
+        IntList removedRows = new IntList();
+        for (int row = 0; row < base.size(); row++) {
+            int yearRow = yearIndex.rowOf(base.getAccountID(row));
+            if (yearRow < 0) {
+                removedRows.add(row);
+            } else if (store.getAssessedValue(yearRow) != base.getAssessedValue(row)) {
+                changedRows.add(row);
+            }
+        }
+
+        int[] changed = changedRows.toArray();
+        long[] deltas = new long[changed.length];
+        for (int i = 0; i < changed.length; i++) {
+            deltas[i] = store.getAssessedValue(yearIndex.rowOf(base.getAccountID(changed[i]))) - base.getAssessedValue(changed[i]);
+        }
+
+        // The added accounts are coded against the base dictionaries, so their codes can be compared with base rows
+        PropertyStore.Builder added = new PropertyStore.Builder(Math.max(store.size() - base.size(), 1), base);
+        for (int row = 0; row < store.size(); row++) {
+            if (baseIndex.rowOf(store.getAccountID(row)) < 0) {
+                added.add(store, row);
+            }
+        }
+
+        years.put(year, new YearChanges(changed, deltas, removedRows.toArray(), added.build()));
+    }
+
+    public int getBaseYear() {return baseYear;}
+    public PropertyStore getBase() {return base;}
+
+    // Every year held, in order, starting with the base year
+    public List<Integer> getYears() {
+        List<Integer> allYears = new ArrayList<>();
+        allYears.add(baseYear);
+        allYears.addAll(years.keySet());
+        return Collections.unmodifiableList(allYears);
+    }
+
+    // Returns the assessed value of an account in the given year
+    public long getAssessedValue(int year, int accountID) {
+        int row = baseIndex.rowOf(accountID);
+        if (year == baseYear) {
+            return row < 0 ? -1 : base.getAssessedValue(row);
+        }
+
+        YearChanges changes = getChanges(year);
+        if (row < 0) {
+            int addedRow = changes.addedIndex().rowOf(accountID);
+            return addedRow < 0 ? -1 : changes.added().getAssessedValue(addedRow);
+        }
+        if (Arrays.binarySearch(changes.removedRows(), row) >= 0) {
+            return -1;
+        }
+        int changed = Arrays.binarySearch(changes.changedRows(), row);
+        return changed < 0 ? base.getAssessedValue(row) : base.getAssessedValue(row) + changes.deltas()[changed];
+    }
+
+    // Returns the accounts that are new in the given year
+    public PropertyStore getAddedAccounts(int year) {
+        return getChanges(year).added();
+    }
+
+    // Returns the number of base year accounts whose assessed value changed in the given year
+    public int getChangedCount(int year) {
+        return getChanges(year).changedRows().length;
+    }
+
+    // Percent change of each neighborhood's total assessed value between two years, over the accounts assessed in both
+    public SortedMap<String, Double> getPercentChangeByNeighborhood(int fromYear, int toYear) {
+        if (baseNeighborhoodSums == null) {
+            baseNeighborhoodSums = sumBaseValues(base.getNeighborhoodNames().size(), base::getNeighborhoodNameCode);
+        }
+        return getPercentChange(fromYear, toYear, baseNeighborhoodSums, base::getNeighborhoodNameCode, base.getNeighborhoodNames());
+    }
+
+    // Percent change of each ward's total assessed value between two years, over the accounts assessed in both
+    public SortedMap<String, Double> getPercentChangeByWard(int fromYear, int toYear) {
+        if (baseWardSums == null) {
+            baseWardSums = sumBaseValues(base.getWards().size(), base::getWardCode);
+        }
+        return getPercentChange(fromYear, toYear, baseWardSums, base::getWardCode, base.getWards());
+    }
+
+    private SortedMap<String, Double> getPercentChange(int fromYear, int toYear, long[] baseSums,
+                                                       IntUnaryOperator groupOfRow, StringDictionary groupNames) {
+        YearChanges from = fromYear == baseYear ? null : getChanges(fromYear);
+        YearChanges to = toYear == baseYear ? null : getChanges(toYear);
+
+        // Both sums start at the base values and only the changed and removed rows of each year adjust them
+        long[] fromSums = baseSums.clone();
+        long[] toSums = baseSums.clone();
+        if (from != null) {
+            addDeltas(from, fromSums, groupOfRow);
+        }
+        if (to != null) {
+            addDeltas(to, toSums, groupOfRow);
+        }
+
+        // A row gone in either year is left out of both sums, so they cover the same accounts
+        int[] removedRows = mergeRemovedRows(from, to);
+        for (int row : removedRows) {
+            int group = groupOfRow.applyAsInt(row);
+            fromSums[group] -= valueIn(from, row);
+            toSums[group] -= valueIn(to, row);
+        }
+
+        SortedMap<String, Double> percentChanges = new TreeMap<>();
+        for (int group = 0; group < baseSums.length; group++) {
+            if (fromSums[group] != 0) {
+                percentChanges.put(groupNames.valueOf(group), (toSums[group] - fromSums[group]) * 100.0 / fromSums[group]);
+            }
+        }
+        return percentChanges;
+    }
+
+    private void addDeltas(YearChanges changes, long[] sums, IntUnaryOperator groupOfRow) {
+        int[] changedRows = changes.changedRows();
+        long[] deltas = changes.deltas();
+        for (int i = 0; i < changedRows.length; i++) {
+            sums[groupOfRow.applyAsInt(changedRows[i])] += deltas[i];
+        }
+    }
+
+    // The value a base row has in a year, before removals are taken into account
+    private long valueIn(YearChanges changes, int row) {
+        if (changes == null) {
+            return base.getAssessedValue(row);
+        }
+        int changed = Arrays.binarySearch(changes.changedRows(), row);
+        return changed < 0 ? base.getAssessedValue(row) : base.getAssessedValue(row) + changes.deltas()[changed];
+    }
+
+    private int[] mergeRemovedRows(YearChanges from, YearChanges to) {
+        int[] fromRows = from == null ? new int[0] : from.removedRows();
+        int[] toRows = to == null ? new int[0] : to.removedRows();
+        return IntStream.concat(Arrays.stream(fromRows), Arrays.stream(toRows)).sorted().distinct().toArray();
+    }
+
+    private long[] sumBaseValues(int groupCount, IntUnaryOperator groupOfRow) {
+        long[] sums = new long[groupCount];
+        for (int row = 0; row < base.size(); row++) {
+            sums[groupOfRow.applyAsInt(row)] += base.getAssessedValue(row);
+        }
+        return sums;
+    }
+
+    private YearChanges getChanges(int year) {
+        YearChanges changes = years.get(year);
+        if (changes == null) {
+            throw new IllegalArgumentException("Year " + year + " has not been loaded.");
+        }
+        return changes;
+    }
+
+    // How a later year differs from the base year, the row arrays are sorted base rows
+    private record YearChanges(int[] changedRows, long[] deltas, int[] removedRows, PropertyStore added, AccountIndex addedIndex) {
+        YearChanges(int[] changedRows, long[] deltas, int[] removedRows, PropertyStore added) {
+            this(changedRows, deltas, removedRows, added, new AccountIndex(added));
+        }
+    }
+
+    // Growable int array, so collecting rows doesn't box them
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
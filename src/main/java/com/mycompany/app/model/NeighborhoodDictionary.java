@@ -0,0 +1,128 @@
+package com.mycompany.app.model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Hands out one canonical Neighborhood per neighborhood ID, so a store only needs one code per row
+public class NeighborhoodDictionary {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StringDictionary names = new StringDictionary();
+    private final StringDictionary wards = new StringDictionary();
+    private final List<Neighborhood> neighborhoods = new ArrayList<>();
+    private int[] nameCodes = new int[INITIAL_CAPACITY];
+    private int[] wardCodes = new int[INITIAL_CAPACITY];
+
+    // Open-addressing table from neighborhood ID to the first code with that ID, a code slot holds the code plus one
+    private int[] idKeys = new int[INITIAL_CAPACITY * 2];
+    private int[] idCodes = new int[INITIAL_CAPACITY * 2];
+
+    // Returns the code of the given neighborhood, adding it to the dictionary if it is new
+    public int intern(int neighborhoodID, String neighborhoodName, String ward) {
+        return intern(neighborhoodID, names.intern(neighborhoodName), wards.intern(ward));
+    }
+
+    // Returns the code of the neighborhood whose name and ward are encoded in the ranges of the buffer, adding it if it is new
+    public int intern(int neighborhoodID, ByteBuffer buffer, int nameStart, int nameEnd, int wardStart, int wardEnd) {
+        return intern(neighborhoodID, names.intern(buffer, nameStart, nameEnd), wards.intern(buffer, wardStart, wardEnd));
+    }
+
+    public Neighborhood valueOf(int code) {
+        return neighborhoods.get(code);
+    }
+
+    // Returns the canonical neighborhood with the given ID, or null if there is none
+    public Neighborhood getByID(int neighborhoodID) {
+        int code = findCode(neighborhoodID);
+        return code < 0 ? null : neighborhoods.get(code);
+    }
+
+    public int getNameCode(int code) {return nameCodes[code];}
+    public int getWardCode(int code) {return wardCodes[code];}
+    public StringDictionary getNames() {return names;}
+    public StringDictionary getWards() {return wards;}
+
+    public int size() {
+        return neighborhoods.size();
+    }
+
+    // Adds every neighborhood of another dictionary to this one
+    public int[] internAll(NeighborhoodDictionary other) {
+        int[] remap = new int[other.size()];
+        for (int code = 0; code < remap.length; code++) {
+            Neighborhood neighborhood = other.valueOf(code);
+            remap[code] = intern(neighborhood.getNeighborhoodID(), neighborhood.getNeighborhoodName(), neighborhood.getWard());
+        }
+        return remap;
+    }
+
+    private int intern(int neighborhoodID, int nameCode, int wardCode) {
+        int code = findCode(neighborhoodID);
+        if (code >= 0) {
+            if (nameCodes[code] == nameCode && wardCodes[code] == wardCode) {
+                return code;
+            }
+            for (int other = 0; other < neighborhoods.size(); other++) {
+                if (neighborhoods.get(other).getNeighborhoodID() == neighborhoodID
+                        && nameCodes[other] == nameCode && wardCodes[other] == wardCode) {
+                    return other;
+                }
+            }
+        }
+
+        int newCode = neighborhoods.size();
+        neighborhoods.add(new Neighborhood(neighborhoodID, names.valueOf(nameCode), wards.valueOf(wardCode)));
+        if (newCode == nameCodes.length) {
+            nameCodes = Arrays.copyOf(nameCodes, newCode * 2);
+            wardCodes = Arrays.copyOf(wardCodes, newCode * 2);
+        }
+        nameCodes[newCode] = nameCode;
+        wardCodes[newCode] = wardCode;
+        if (code < 0) {
+            putCode(neighborhoodID, newCode);
+        }
+        return newCode;
+    }
+
+    private int findCode(int neighborhoodID) {
+        int mask = idKeys.length - 1;
+        for (int slot = mix(neighborhoodID) & mask; idCodes[slot] != 0; slot = (slot + 1) & mask) {
+            if (idKeys[slot] == neighborhoodID) {
+                return idCodes[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void putCode(int neighborhoodID, int code) {
+        if (neighborhoods.size() * 2 > idKeys.length) {
+            int[] oldKeys = idKeys;
+            int[] oldCodes = idCodes;
+            idKeys = new int[oldKeys.length * 2];
+            idCodes = new int[oldCodes.length * 2];
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldCodes[slot] != 0) {
+                    insert(oldKeys[slot], oldCodes[slot]);
+                }
+            }
+        }
+        insert(neighborhoodID, code + 1);
+    }
+
+    private void insert(int neighborhoodID, int codePlusOne) {
+        int mask = idKeys.length - 1;
+        int slot = mix(neighborhoodID) & mask;
+        while (idCodes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        idKeys[slot] = neighborhoodID;
+        idCodes[slot] = codePlusOne;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
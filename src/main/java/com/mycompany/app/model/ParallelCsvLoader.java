@@ -0,0 +1,153 @@
+package com.mycompany.app.model;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Loads the property assessment CSV in parallel, each thread parsing its own chunk of the mapped file
+public class ParallelCsvLoader {
+    private static final long MIN_CHUNK_SIZE = 4L << 20;
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_SIZE = 64 << 10;
+
+    private final ForkJoinPool pool;
+
+    public ParallelCsvLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelCsvLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Loads every record of the CSV file, skipping the header line
+    public PropertyStore load(Path csvPath, LoadProgressListener progressListener) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> boundaries = findChunkBoundaries(channel, size);
+
+            AtomicLong bytesParsed = new AtomicLong(boundaries.get(0));
+            List<ForkJoinTask<PropertyStore.Builder>> chunkTasks = new ArrayList<>();
+            for (int i = 0; i + 1 < boundaries.size(); i++) {
+                long start = boundaries.get(i);
+                long end = boundaries.get(i + 1);
+                chunkTasks.add(pool.submit(() -> {
+                    PropertyStore.Builder chunk = parseChunk(channel, start, end);
+                    progressListener.onProgress(bytesParsed.addAndGet(end - start), size);
+                    return chunk;
+                }));
+            }
+
+            // Join in submission order so the records stay in file order
+            List<PropertyStore.Builder> chunks = new ArrayList<>(chunkTasks.size());
+            int recordCount = 0;
+            for (ForkJoinTask<PropertyStore.Builder> chunkTask : chunkTasks) {
+                try {
+                    PropertyStore.Builder chunk = chunkTask.get();
+                    chunks.add(chunk);
+                    recordCount += chunk.size();
+                } catch (InterruptedException | ExecutionException e) {
+                    chunkTasks.forEach(task -> task.cancel(true));
+                    throw asIOException(e);
+                }
+            }
+
+            PropertyStore.Builder builder = new PropertyStore.Builder(recordCount);
+            chunks.forEach(builder::addAll);
+            progressListener.onProgress(size, size);
+            return builder.build();
+        }
+    }
+
+    private IOException asIOException(Exception e) {
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            return new InterruptedIOException("Error: loading was interrupted.");
+        }
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException uncheckedIOException) {
+            return uncheckedIOException.getCause();
+        }
+        return new IOException("Error: could not parse the file.", cause);
+    }
+
+    private PropertyStore.Builder parseChunk(FileChannel channel, long start, long end) {
+        try {
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            PropertyStore.Builder builder = new PropertyStore.Builder();
+            new CsvRowParser().parseLines(chunk, 0, (int) (end - start), builder);
+            return builder;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The first boundary is the end of the header line, the rest follow a '\n' near each planned split point
+    private List<Long> findChunkBoundaries(FileChannel channel, long size) throws IOException {
+        long headerEnd = findHeaderEnd(channel, size);
+        long chunkSize = (size - headerEnd) / ((long) pool.getParallelism() * CHUNKS_PER_THREAD);
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(headerEnd);
+        long position = headerEnd;
+        while (position < size) {
+            position = findChunkEnd(channel, position, chunkSize, size);
+            boundaries.add(position);
+        }
+        return boundaries;
+    }
+
+    // A chunk ends just past the first '\n' at least chunkSize bytes after its start, or at the end of the file
+    static long findChunkEnd(FileChannel channel, long start, long chunkSize, long size) throws IOException {
+        long end = start + chunkSize >= size ? size : Math.min(size, findByte(channel, start + chunkSize, size, false) + 1);
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException("Error: line at byte " + start + " is too long to parse.");
+        }
+        return end;
+    }
+
+    // The header, like any line read by readLine, may end with '\n', '\r' or "\r\n"
+    static long findHeaderEnd(FileChannel channel, long size) throws IOException {
+        long lineEnd = findByte(channel, 0, size, true);
+        if (lineEnd >= size) {
+            return size;
+        }
+        ByteBuffer terminator = ByteBuffer.allocate(2);
+        channel.read(terminator, lineEnd);
+        boolean isCrLf = terminator.position() == 2 && terminator.get(0) == '\r' && terminator.get(1) == '\n';
+        return lineEnd + (isCrLf ? 2 : 1);
+    }
+
+    // Finds the first '\n' (or '\r' too, if asked) at or after the position, or the file size if there is none
+    private static long findByte(FileChannel channel, long position, long size, boolean includeCarriageReturn) throws IOException {
+        ByteBuffer scanBuffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            scanBuffer.clear();
+            int read = channel.read(scanBuffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = scanBuffer.get(i);
+                if (b == '\n' || (includeCarriageReturn && b == '\r')) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mycompany.app.model;
+
+// Percentiles of assessed values, exact for a set of rows and estimates within the error bound when read from a KllSketch
+public record Percentiles(long count, long p10, long p25, long p75, long p90, long p99, boolean exact) {
+    public static final Percentiles EMPTY = new Percentiles(0, 0, 0, 0, 0, 0, true);
+
+    public static Percentiles of(KllSketch sketch) {
+        if (sketch.isEmpty()) {
+            return EMPTY;
+        }
+        long[] quantiles = sketch.getQuantiles(0.10, 0.25, 0.75, 0.90, 0.99);
+        return new Percentiles(sketch.getCount(), quantiles[0], quantiles[1], quantiles[2], quantiles[3], quantiles[4], false);
+    }
+
+    // Cached by the assessments, so asking again for the same set is free
+    public static Percentiles of(PropertyAssessments assessments) {
+        return assessments.getPercentiles();
+    }
+
+    public boolean isEmpty() {return count == 0;}
+}
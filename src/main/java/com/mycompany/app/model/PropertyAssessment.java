@@ -1,38 +1,60 @@
 package com.mycompany.app.model;
 
 public class PropertyAssessment implements Comparable<PropertyAssessment> {
-    // Instance variables:
-    private final int accountID;
-    private final Address address;
-    private final String garage;
-    private final Neighborhood neighborhood;
-    private final long assessedValue;
-    private final Location location;
-    private final AssessmentClass assessmentClass;
-
-    // Constructor:
+    // Instance variables, a property is a view over one row of a column store, or holds its own values:
+    private final PropertyStore store; // Null when the property holds its own values
+    private final int row;
+    private final Values values;       // Null when the property is a view over a store
+
+    // Constructors:
     public PropertyAssessment(int accountID, Address address, String garage, Neighborhood neighborhood, long assessedValue, Location location, AssessmentClass assessmentClass) {
-        this.accountID = accountID;
-        this.address = address;
-        this.garage = garage;
-        this.neighborhood = neighborhood;
-        this.assessedValue = assessedValue;
-        this.location = location;
-        this.assessmentClass = assessmentClass;
+        this.store = null;
+        this.row = -1;
+        this.values = new Values(accountID, address, garage, neighborhood, assessedValue, location, assessmentClass);
+    }
+
+    public PropertyAssessment(PropertyStore store, int row) {
+        this.store = store;
+        this.row = row;
+        this.values = null;
     }
 
     // Getters:
-    public int getAccountID() {return accountID;}
-    public Address getAddress() {return address;}
-    public String getGarage() {return garage;}
-    public Neighborhood getNeighborhood() {return neighborhood;}
-    public long getAssessedValue() {return assessedValue;}
-    public Location getLocation() {return location;}
-    public AssessmentClass getAssessmentClass() {return assessmentClass;}
+    public int getAccountID() {return values != null ? values.accountID() : store.getAccountID(row);}
+    public Address getAddress() {return values != null ? values.address() : store.getAddress(row);}
+    public String getGarage() {return values != null ? values.garage() : store.getGarage(row);}
+    public Neighborhood getNeighborhood() {return values != null ? values.neighborhood() : store.getNeighborhood(row);}
+    public long getAssessedValue() {return values != null ? values.assessedValue() : store.getAssessedValue(row);}
+    public Location getLocation() {return values != null ? values.location() : store.getLocation(row);}
+    public AssessmentClass getAssessmentClass() {return values != null ? values.assessmentClass() : store.getAssessmentClass(row);}
+
+    // The store and row this property is a view over, null and -1 when it holds its own values
+    public PropertyStore getStore() {return store;}
+    public int getRow() {return row;}
 
     // Methods:
     @Override
     public int compareTo(PropertyAssessment otherProperty) {
-        return Long.compare(this.assessedValue, otherProperty.assessedValue);
+        return Long.compare(this.getAssessedValue(), otherProperty.getAssessedValue());
+    }
+
+    // Two views of the same row are the same property, a property holding its own values is only itself
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PropertyAssessment that = (PropertyAssessment) o;
+        return store == that.store && row == that.row && values == that.values;
+    }
+
+    @Override
+    public int hashCode() {
+        return values != null ? System.identityHashCode(values) : 31 * System.identityHashCode(store) + row;
+    }
+
+    // The values of a property made on its own, kept as given rather than in a one-row store
+    private record Values(int accountID, Address address, String garage, Neighborhood neighborhood,
+                          long assessedValue, Location location, AssessmentClass assessmentClass) {
     }
 }
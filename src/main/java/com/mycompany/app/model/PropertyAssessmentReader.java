@@ -0,0 +1,90 @@
+package com.mycompany.app.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Reads a property assessment CSV one chunk at a time, for single passes that don't need the whole file in memory
+public class PropertyAssessmentReader implements Closeable {
+    public static final long DEFAULT_CHUNK_SIZE = 4L << 20;
+    // Every chunk is a mapping of its own, so tiny chunks would pile up mappings faster than they are released
+    private static final long MIN_CHUNK_SIZE = 64L << 10;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long chunkSize;
+    private final CsvRowParser parser = new CsvRowParser();
+    private long position;
+
+    public PropertyAssessmentReader(Path csvPath) throws IOException {
+        this(csvPath, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PropertyAssessmentReader(Path csvPath, long chunkSize) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.channel = FileChannel.open(csvPath, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.chunkSize = Math.max(chunkSize, MIN_CHUNK_SIZE);
+        this.position = ParallelCsvLoader.findHeaderEnd(channel, size); // Skip the first header line
+    }
+
+    // Parses the next chunk of the file
+    public PropertyStore nextChunk() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        long end = ParallelCsvLoader.findChunkEnd(channel, position, chunkSize, size);
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+        PropertyStore.Builder builder = new PropertyStore.Builder();
+        parser.parseLines(chunk, 0, (int) (end - position), builder);
+        position = end;
+        return builder.build();
+    }
+
+    // Returns the bytes of the file read so far and its total size, for progress reporting
+    public long getPosition() {return position;}
+    public long getSize() {return size;}
+
+    // Streams the remaining chunks of the file
+    public Stream<PropertyStore> chunks() {
+        Spliterator<PropertyStore> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super PropertyStore> action) {
+                try {
+                    PropertyStore chunk = nextChunk();
+                    if (chunk == null) {
+                        return false;
+                    }
+                    action.accept(chunk);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    // Streams the remaining records of the file, parsed a chunk at a time
+    public Stream<PropertyAssessment> records() {
+        return chunks().flatMap(chunk -> IntStream.range(0, chunk.size()).mapToObj(row -> new PropertyAssessment(chunk, row)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,27 +1,72 @@
 package com.mycompany.app.model;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.RandomAccess;
 
 public class PropertyAssessments {
+    // How the CSV file is read:
+    public enum LoadMode {
+        READER,         // BufferedReader with a String split per line
+        MEMORY_MAPPED,  // NIO memory-mapped file parsed straight from the bytes
+        PARALLEL,       // Memory-mapped chunks parsed on a ForkJoinPool
+        CACHED          // Binary snapshot next to the CSV, parsed with PARALLEL when it is missing or stale
+    }
+
     // Instance variables, these will be accessible with each instance of the class:
     private final String fileName;
-    private List<PropertyAssessment> properties = new ArrayList<>();
-    private Map<Integer, PropertyAssessment> propertyMap;
+    private final PropertyStore store;
+    private final int[] rows; // The store rows in this collection, or null when it holds every row
+    private final List<PropertyAssessment> properties = new PropertyList();
+    private BitSet members; // The rows in this collection, built by buildIndexes when it doesn't hold every row
+    private PropertyStatistics statistics; // Computed once by getStatistics
+    private Percentiles percentiles; // Computed once by getPercentiles
+    private String loadWarning; // Why the snapshot was not used or written, null when it was
 
     // Constructor:
     // Creates a new instance of the class with a given fileName and loads the data
     public PropertyAssessments(String fileName) throws IOException {
+        this(fileName, LoadMode.READER);
+    }
+
+    // Creates a new instance of the class with a given fileName and loads the data the given way
+    public PropertyAssessments(String fileName, LoadMode loadMode) throws IOException {
+        this(fileName, loadMode, LoadProgressListener.NONE);
+    }
+
+    // Creates a new instance of the class with a given fileName and loads the data the given way, reporting progress
+    public PropertyAssessments(String fileName, LoadMode loadMode, LoadProgressListener progressListener) throws IOException {
         this.fileName = fileName;
-        loadData(fileName);
+        this.store = loadData(fileName, loadMode, progressListener);
+        this.rows = null;
     }
 
     public PropertyAssessments(List<PropertyAssessment> properties) {
         this.fileName = null;
-        this.properties = properties;
+        if (properties.isEmpty()) {
+            this.store = PropertyStore.EMPTY;
+            this.rows = null;
+        } else if (properties.get(0).getStore() != null
+                && properties.stream().allMatch(property -> property.getStore() == properties.get(0).getStore())) {
+            // Views over one store only need their row numbers
+            this.store = properties.get(0).getStore();
+            this.rows = properties.stream().mapToInt(PropertyAssessment::getRow).toArray();
+        } else {
+            PropertyStore.Builder builder = new PropertyStore.Builder(properties.size());
+            properties.forEach(builder::add);
+            this.store = builder.build();
+            this.rows = null;
+        }
+    }
+
+    // Creates a collection of the given rows of a store, rows may be null for every row
+    public PropertyAssessments(PropertyStore store, int[] rows) {
+        this.fileName = null;
+        this.store = store;
+        this.rows = rows;
     }
 
     // Getters:
@@ -29,22 +74,57 @@ public class PropertyAssessments {
         return fileName;
     }
     public List<PropertyAssessment> getProperties() {return properties;}
+    public PropertyStore getStore() {return store;}
+    public boolean hasAllRows() {return rows == null;} // True when this collection is every row of its store, in order
+
+    // Returns the store row of the property at the given position of this collection
+    public int getRow(int index) {
+        return rows == null ? index : rows[index];
+    }
 
     // Methods:
-    private void loadData(String fileName) throws IOException {
+    private PropertyStore loadData(String fileName, LoadMode loadMode, LoadProgressListener progressListener) throws IOException {
         // Check the file, open it and start reading:
         fileName = checkFile(fileName);
+        return switch (loadMode) {
+            case MEMORY_MAPPED -> new MappedCsvLoader().load(Path.of(fileName));
+            case PARALLEL -> new ParallelCsvLoader().load(Path.of(fileName), progressListener);
+            case CACHED -> loadCachedData(Path.of(fileName), progressListener);
+            default -> readData(fileName);
+        };
+    }
+
+    private PropertyStore loadCachedData(Path csvPath, LoadProgressListener progressListener) throws IOException {
+        // A snapshot that can't be used or written is reported, the data is loaded from the CSV either way
+        try {
+            PropertyStore snapshot = PropertySnapshot.load(csvPath, progressListener);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        } catch (IOException e) {
+            loadWarning = e.getMessage() + " The data was read from the CSV instead.";
+        }
+
+        PropertyStore parsed = new ParallelCsvLoader().load(csvPath, progressListener);
+        try {
+            PropertySnapshot.save(csvPath, parsed);
+        } catch (IOException e) {
+            loadWarning = "The snapshot could not be written, the next start reads the CSV again: " + e.getMessage();
+        }
+        return parsed;
+    }
+
+    private PropertyStore readData(String fileName) throws IOException {
         FileReader CSVFile = new FileReader(fileName);
         BufferedReader CSVParser = new BufferedReader(CSVFile);
+        PropertyStore.Builder builder = new PropertyStore.Builder();
 
         String line = CSVParser.readLine(); // Skip the first header line
         while ((line = CSVParser.readLine()) != null) {
             String[] CSVTokens = line.split(",", -1);
-            addProperty(CSVTokens);
+            addProperty(builder, CSVTokens);
         }
-
-        propertyMap = properties.stream()
-                .collect(Collectors.toMap(PropertyAssessment::getAccountID, property -> property));
+        return builder.build();
     }
 
     private String checkFile(String fileName) throws FileNotFoundException {
@@ -58,27 +138,24 @@ public class PropertyAssessments {
         return fileName;
     }
 
-    private void addProperty(String[] CSVTokens) {
+    private void addProperty(PropertyStore.Builder builder, String[] CSVTokens) {
         int accountID = parseInt(CSVTokens[0]);
 
         int suite = parseInt(CSVTokens[1]);
         int houseNumber = parseInt(CSVTokens[2]);
         String streetName = CSVTokens[3];
-        Address newAddress = new Address(suite, houseNumber, streetName);
 
         String garage = CSVTokens[4];
 
         int neighborhoodID = parseInt(CSVTokens[5]);
         String neighborhoodName = CSVTokens[6];
         String ward = CSVTokens[7];
-        Neighborhood newNeighborhood = new Neighborhood(neighborhoodID, neighborhoodName, ward);
 
         long assessedValue = parseLong(CSVTokens[8]);
 
         double lat = parseDouble(CSVTokens[9]);
         double lng = parseDouble(CSVTokens[10]);
         String point = CSVTokens[11];
-        Location newLocation = new Location(lat, lng, point);
 
         int assessmentPercentage1 = parseInt(CSVTokens[12]);
         int assessmentPercentage2 = parseInt(CSVTokens[13]);
@@ -86,14 +163,10 @@ public class PropertyAssessments {
         String assessmentClass1 = CSVTokens[15];
         String assessmentClass2 = CSVTokens[16];
         String assessmentClass3 = CSVTokens[17];
-        AssessmentClass newAssessmentClass = new AssessmentClass(assessmentPercentage1, assessmentPercentage2, assessmentPercentage3, assessmentClass1, assessmentClass2, assessmentClass3);
-
-        PropertyAssessment newProperty = new PropertyAssessment(accountID, newAddress, garage, newNeighborhood, assessedValue, newLocation, newAssessmentClass);
-        properties.add(newProperty);
 
-        if (propertyMap != null) {
-            propertyMap.put(accountID, newProperty);
-        }
+        builder.add(accountID, suite, houseNumber, streetName, garage, neighborhoodID, neighborhoodName, ward, assessedValue,
+                lat, lng, point, assessmentPercentage1, assessmentPercentage2, assessmentPercentage3,
+                assessmentClass1, assessmentClass2, assessmentClass3);
     }
 
     private int parseInt(String value) {
@@ -121,69 +194,98 @@ public class PropertyAssessments {
     }
 
     public int getNumberOfRecords() {
-        return properties.size();
+        return rows == null ? store.size() : rows.length;
     }
 
-    public long getMinValue() {
-        long minValue = properties.get(0).getAssessedValue();
-
-        for (PropertyAssessment property : properties) {
-            if (property.getAssessedValue() < minValue) {
-                minValue = property.getAssessedValue();
-            }
-        }
+    // Why a cached load read the CSV or left the snapshot as it was, null when nothing went wrong
+    public String getLoadWarning() {return loadWarning;}
 
-        return minValue;
+    // The getters below all read the one cached set of statistics
+    public long getMinValue() {
+        return getNonEmptyStatistics("minimum").minValue();
     }
 
     public long getMaxValue() {
-        long maxValue = properties.get(0).getAssessedValue();
-
-        for (PropertyAssessment property : properties) {
-            if (property.getAssessedValue() > maxValue) {
-                maxValue = property.getAssessedValue();
-            }
-        }
-
-        return maxValue;
+        return getNonEmptyStatistics("maximum").maxValue();
     }
 
     public long getRange() {
-        return getMaxValue() - getMinValue();
+        return getNonEmptyStatistics("range").range();
     }
 
     public long getMean() {
-        long sum = 0;
+        return getNonEmptyStatistics("mean").mean();
+    }
 
-        for (PropertyAssessment property : properties) {
-            sum += property.getAssessedValue();
+    // Every statistic of the assessed values, worked out together once and cached, see StatisticsEngine
+    public synchronized PropertyStatistics getStatistics() {
+        if (statistics == null) {
+            statistics = StatisticsEngine.compute(this);
         }
+        return statistics;
+    }
 
-        return sum / properties.size();
+    // The exact percentiles of the assessed values, worked out once and cached
+    public synchronized Percentiles getPercentiles() {
+        if (percentiles == null) {
+            percentiles = StatisticsEngine.percentiles(this);
+        }
+        return percentiles;
     }
 
     public long getMedian() {
-        // Create a mutable list of assessed values
-        List<Long> assessedValues = properties.stream()
-                .map(PropertyAssessment::getAssessedValue)
-                .sorted() // Sort the values
-                .collect(Collectors.toList());
+        return getNonEmptyStatistics("median").median();
+    }
 
-        int size = assessedValues.size();
-        if (size == 0) {
-            throw new IllegalStateException("No properties available to calculate median.");
+    private PropertyStatistics getNonEmptyStatistics(String statistic) {
+        if (getNumberOfRecords() == 0) {
+            throw new IllegalStateException("No properties available to calculate " + statistic + ".");
         }
+        return getStatistics();
+    }
 
-        if (size % 2 == 0) {
-            // For even-sized lists, take the average of the two middle elements
-            return (assessedValues.get(size / 2) + assessedValues.get(size / 2 - 1)) / 2;
-        } else {
-            // For odd-sized lists, take the middle element
-            return assessedValues.get(size / 2);
+    // Builds the lookup indexes so the first search doesn't have to, can run on a background thread once loaded
+    public synchronized void buildIndexes() {
+        store.getAccountIndex();
+        if (rows != null && members == null) {
+            BitSet rowSet = new BitSet(store.size());
+            for (int row : rows) {
+                rowSet.set(row);
+            }
+            members = rowSet;
         }
     }
 
+    // The store's account index finds the row, and a filtered collection checks the row is one of its own
     public PropertyAssessment getPropertyByAccountID(int accountID) {
-        return propertyMap.get(accountID);
+        buildIndexes();
+        int row = store.getAccountIndex().rowOf(accountID);
+        if (row < 0 || (members != null && !members.get(row))) {
+            return null;
+        }
+        return new PropertyAssessment(store, row);
+    }
+
+    private long getAssessedValue(int index) {
+        if (index >= getNumberOfRecords()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + getNumberOfRecords());
+        }
+        return store.getAssessedValue(getRow(index));
+    }
+
+    // Read-only list of property views, created as they are asked for
+    private class PropertyList extends AbstractList<PropertyAssessment> implements RandomAccess {
+        @Override
+        public PropertyAssessment get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+            }
+            return new PropertyAssessment(store, getRow(index));
+        }
+
+        @Override
+        public int size() {
+            return getNumberOfRecords();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+
+// One RowBitmap per neighborhood name, ward, garage value and assessment class name of a store, by dictionary code
+public class PropertyIndexes {
+    private final PropertyStore store;
+    private final RowBitmap[] neighborhoods;
+    private final RowBitmap[] wards;
+    private final RowBitmap[] garages;
+    private final RowBitmap[] assessmentClasses;
+    private final ValueIndex assessedValues;
+    private final AssessmentClassIndex assessmentClassShares;
+    private final DistinctValueCatalog distinctValues;
+    private final AddressSearchIndex addresses;
+    private final AggregateCube aggregates;
+
+    public PropertyIndexes(PropertyStore store) {
+        this.store = store;
+
+        RowBitmap.Builder[] neighborhoodBuilders = newBuilders(store.getNeighborhoodNames().size());
+        RowBitmap.Builder[] wardBuilders = newBuilders(store.getWards().size());
+        RowBitmap.Builder[] garageBuilders = newBuilders(store.getGarages().size());
+        RowBitmap.Builder[] assessmentClassBuilders = newBuilders(store.getAssessmentClassNames().size());
+
+        // The class names listed by each combination, worked out once per combination instead of per row
+        AssessmentClassDictionary combinations = store.getAssessmentClasses();
+        int[][] namesOfCombination = new int[combinations.size()][];
+        for (int code = 0; code < namesOfCombination.length; code++) {
+            namesOfCombination[code] = listedNames(combinations, code);
+        }
+
+        for (int row = 0; row < store.size(); row++) {
+            neighborhoodBuilders[store.getNeighborhoodNameCode(row)].add(row);
+            wardBuilders[store.getWardCode(row)].add(row);
+            garageBuilders[store.getGarageCode(row)].add(row);
+            for (int nameCode : namesOfCombination[store.getAssessmentClassCode(row)]) {
+                assessmentClassBuilders[nameCode].add(row);
+            }
+        }
+
+        neighborhoods = build(neighborhoodBuilders);
+        wards = build(wardBuilders);
+        garages = build(garageBuilders);
+        assessmentClasses = build(assessmentClassBuilders);
+        assessedValues = new ValueIndex(store);
+        assessmentClassShares = new AssessmentClassIndex(store);
+        distinctValues = new DistinctValueCatalog(store);
+        addresses = new AddressSearchIndex(store);
+        aggregates = new AggregateCube(store);
+    }
+
+    public PropertyStore getStore() {return store;}
+    public ValueIndex getAssessedValues() {return assessedValues;}
+    public AssessmentClassIndex getAssessmentClassShares() {return assessmentClassShares;}
+    public DistinctValueCatalog getDistinctValues() {return distinctValues;}
+    public AddressSearchIndex getAddresses() {return addresses;}
+    public AggregateCube getAggregates() {return aggregates;}
+
+    // The rows with the given value, or an empty bitmap if the store has no such value:
+    public RowBitmap getNeighborhood(String neighborhoodName) {
+        return lookup(neighborhoods, store.getNeighborhoodNames().codeOf(neighborhoodName));
+    }
+
+    public RowBitmap getWard(String ward) {
+        return lookup(wards, store.getWards().codeOf(ward));
+    }
+
+    public RowBitmap getGarage(String garage) {
+        return lookup(garages, store.getGarages().codeOf(garage));
+    }
+
+    public RowBitmap getAssessmentClass(String assessmentClass) {
+        return lookup(assessmentClasses, store.getAssessmentClassNames().codeOf(assessmentClass));
+    }
+
+    private static int[] listedNames(AssessmentClassDictionary combinations, int code) {
+        int[] names = new int[PropertyStore.ASSESSMENT_CLASS_SLOTS];
+        int count = 0;
+        for (int slot = 0; slot < PropertyStore.ASSESSMENT_CLASS_SLOTS; slot++) {
+            int nameCode = combinations.getNameCode(code, slot);
+            boolean listed = combinations.getPercentage(code, slot) != -1;
+            boolean repeated = false;
+            for (int i = 0; i < count; i++) {
+                repeated |= names[i] == nameCode;
+            }
+            if (listed && !repeated) {
+                names[count++] = nameCode;
+            }
+        }
+        return Arrays.copyOf(names, count);
+    }
+
+    private static RowBitmap lookup(RowBitmap[] bitmaps, int code) {
+        return code < 0 ? RowBitmap.EMPTY : bitmaps[code];
+    }
+
+    private static RowBitmap.Builder[] newBuilders(int count) {
+        RowBitmap.Builder[] builders = new RowBitmap.Builder[count];
+        for (int i = 0; i < count; i++) {
+            builders[i] = new RowBitmap.Builder();
+        }
+        return builders;
+    }
+
+    private static RowBitmap[] build(RowBitmap.Builder[] builders) {
+        RowBitmap[] bitmaps = new RowBitmap[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            bitmaps[i] = builders[i].build();
+        }
+        return bitmaps;
+    }
+}
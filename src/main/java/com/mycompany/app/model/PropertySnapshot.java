@@ -0,0 +1,384 @@
+package com.mycompany.app.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// Binary snapshot of a loaded PropertyStore, written next to its CSV as <csv file>.snapshot. It is keyed on the
+// CSV's size and modification time and a CRC32C hash of sampled blocks of it, since a copy can keep both of the first
+public class PropertySnapshot {
+    private static final long MAGIC = 0x50524F5053544F52L; // "PROPSTOR"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 8 + 4 + 8 + 8 + 8 + 8 + 8;
+    private static final int HASH_EDGE_SIZE = 1 << 20; // Hashed in full at each end of the CSV
+    private static final int HASH_SAMPLE_COUNT = 64;   // Blocks hashed evenly spread between the ends
+    private static final int HASH_SAMPLE_SIZE = 1 << 16;
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 20;
+    private static final String SUFFIX = ".snapshot";
+
+    private PropertySnapshot() {
+    }
+
+    public static Path snapshotPathFor(Path csvPath) {
+        return csvPath.resolveSibling(csvPath.getFileName() + SUFFIX);
+    }
+
+    // Loads the snapshot of the CSV file, or returns null if it is missing or stale. A corrupt one throws
+    public static PropertyStore load(Path csvPath, LoadProgressListener progressListener) throws IOException {
+        Path snapshotPath = snapshotPathFor(csvPath);
+        if (!Files.isRegularFile(snapshotPath)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            // Only the header is read until the snapshot is known to match, so a stale one is never mapped
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+
+            long csvSize = header.getLong();
+            long csvModified = header.getLong();
+            long csvHash = header.getLong();
+            if (csvSize != Files.size(csvPath) || csvModified != Files.getLastModifiedTime(csvPath).toMillis()
+                    || csvHash != hash(csvPath, progressListener)) {
+                return null;
+            }
+
+            long bodyLength = header.getLong();
+            long bodyChecksum = header.getLong();
+            if (bodyLength != channel.size() - HEADER_SIZE || bodyLength > Integer.MAX_VALUE) {
+                throw new IOException("The snapshot " + snapshotPath + " is cut short or too large.");
+            }
+            // Checked before mapping too, a mapping is only released once collected and would keep a corrupt file in use
+            if (checksum(channel, HEADER_SIZE) != bodyChecksum) {
+                throw new IOException("The snapshot " + snapshotPath + " is corrupt.");
+            }
+
+            ByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                return PropertyStore.readFrom(new Reader(body));
+            } catch (RuntimeException e) {
+                throw new IOException("The snapshot " + snapshotPath + " could not be read.", e);
+            }
+        }
+    }
+
+    // Writes a snapshot of the store next to its CSV file, through a temporary file so readers never see half of one
+    public static void save(Path csvPath, PropertyStore store) throws IOException {
+        long csvSize = Files.size(csvPath);
+        long csvModified = Files.getLastModifiedTime(csvPath).toMillis();
+        long csvHash = hash(csvPath, LoadProgressListener.NONE);
+
+        Path snapshotPath = snapshotPathFor(csvPath);
+        Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel, HEADER_SIZE);
+            store.writeTo(writer);
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putInt(VERSION).putLong(csvSize).putLong(csvModified).putLong(csvHash)
+                    .putLong(writer.getBytesWritten()).putLong(writer.getChecksum()).flip();
+            channel.write(header, 0);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+        Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // CRC32C of the CSV's first and last megabyte and of blocks evenly spread between them, or of all of it when it is
+    // no larger than those. A few megabytes at most, so it is checked on every load. Another file of the same size
+    // differs somewhere sampled unless it only changes bytes between the samples
+    private static long hash(Path csvPath, LoadProgressListener progressListener) throws IOException {
+        CRC32C hash = new CRC32C();
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long sampledSize = 2L * HASH_EDGE_SIZE + (long) HASH_SAMPLE_COUNT * HASH_SAMPLE_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_EDGE_SIZE);
+            if (size <= sampledSize) {
+                update(hash, channel, buffer, 0, size);
+                progressListener.onProgress(size, size);
+                return hash.getValue();
+            }
+
+            update(hash, channel, buffer, 0, HASH_EDGE_SIZE);
+            long gap = (size - sampledSize) / (HASH_SAMPLE_COUNT + 1);
+            for (int sample = 0; sample < HASH_SAMPLE_COUNT; sample++) {
+                update(hash, channel, buffer, HASH_EDGE_SIZE + gap * (sample + 1) + (long) sample * HASH_SAMPLE_SIZE, HASH_SAMPLE_SIZE);
+                progressListener.onProgress(HASH_EDGE_SIZE + (long) (sample + 1) * HASH_SAMPLE_SIZE, sampledSize);
+            }
+            update(hash, channel, buffer, size - HASH_EDGE_SIZE, HASH_EDGE_SIZE);
+            progressListener.onProgress(sampledSize, sampledSize);
+        }
+        return hash.getValue();
+    }
+
+    // Adds the given number of bytes of the channel from the position to the hash
+    private static void update(CRC32C hash, FileChannel channel, ByteBuffer buffer, long position, long length) throws IOException {
+        for (long end = position + length; position < end; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("The file ended while it was being hashed.");
+            }
+            buffer.flip();
+            hash.update(buffer);
+            position += read;
+        }
+    }
+
+    // CRC32C of the channel from the position to its end, read through a buffer rather than mapped
+    private static long checksum(FileChannel channel, long position) throws IOException {
+        CRC32C checksum = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        for (int read; (read = channel.read(buffer, position)) >= 0; position += read) {
+            buffer.flip();
+            checksum.update(buffer);
+            buffer.clear();
+        }
+        return checksum.getValue();
+    }
+
+    // Writes snapshot values to a file channel through a buffer, keeping a checksum of everything written
+    public static class Writer {
+        private static final int BUFFER_SIZE = 1 << 20;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C checksum = new CRC32C();
+        private long position;
+        private long bytesWritten;
+
+        private Writer(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        public void putInt(int value) throws IOException {
+            ensureSpace(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        public void putLong(long value) throws IOException {
+            ensureSpace(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        public void putIntArray(int[] values, int length) throws IOException {
+            for (int offset = 0; offset < length; ) {
+                ensureSpace(Integer.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        public void putLongArray(long[] values, int length) throws IOException {
+            for (int offset = 0; offset < length; ) {
+                ensureSpace(Long.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Long.BYTES);
+                offset += count;
+            }
+        }
+
+        public void putDoubleArray(double[] values, int length) throws IOException {
+            for (int offset = 0; offset < length; ) {
+                ensureSpace(Double.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                offset += count;
+            }
+        }
+
+        public void putBytes(byte[] bytes) throws IOException {
+            for (int offset = 0; offset < bytes.length; ) {
+                ensureSpace(1);
+                int count = Math.min(bytes.length - offset, buffer.remaining());
+                buffer.put(bytes, offset, count);
+                offset += count;
+            }
+        }
+
+        public void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+
+        public void putStringDictionary(StringDictionary dictionary) throws IOException {
+            putInt(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                putString(dictionary.valueOf(code));
+            }
+        }
+
+        public void putNeighborhoodDictionary(NeighborhoodDictionary dictionary) throws IOException {
+            putInt(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                Neighborhood neighborhood = dictionary.valueOf(code);
+                putInt(neighborhood.getNeighborhoodID());
+                putString(neighborhood.getNeighborhoodName());
+                putString(neighborhood.getWard());
+            }
+        }
+
+        public void putAssessmentClassDictionary(AssessmentClassDictionary dictionary) throws IOException {
+            StringDictionary names = dictionary.getNames();
+            putInt(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                for (int slot = 0; slot < AssessmentClassDictionary.SLOTS; slot++) {
+                    putInt(dictionary.getPercentage(code, slot));
+                    putString(names.valueOf(dictionary.getNameCode(code, slot)));
+                }
+            }
+        }
+
+        // The lengths of every value come first, then their UTF-8 bytes back to back
+        public void putLazyStringColumn(LazyStringColumn column) throws IOException {
+            byte[][] values = new byte[column.size()][];
+            int[] lengths = new int[column.size()];
+            long totalLength = 0;
+            for (int row = 0; row < values.length; row++) {
+                values[row] = column.get(row).getBytes(StandardCharsets.UTF_8);
+                lengths[row] = values[row].length;
+                totalLength += lengths[row];
+            }
+            putIntArray(lengths, lengths.length);
+            putLong(totalLength);
+            for (byte[] value : values) {
+                putBytes(value);
+            }
+        }
+
+        private void ensureSpace(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            bytesWritten += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        private long getBytesWritten() {return bytesWritten;}
+        private long getChecksum() {return checksum.getValue();}
+    }
+
+    // Reads snapshot values from a mapped buffer, copying arrays out in bulk
+    public static class Reader {
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public int getInt() {
+            return buffer.getInt();
+        }
+
+        public long getLong() {
+            return buffer.getLong();
+        }
+
+        public int[] getIntArray(int length) {
+            int[] values = new int[length];
+            buffer.asIntBuffer().get(values);
+            skip((long) length * Integer.BYTES);
+            return values;
+        }
+
+        public long[] getLongArray(int length) {
+            long[] values = new long[length];
+            buffer.asLongBuffer().get(values);
+            skip((long) length * Long.BYTES);
+            return values;
+        }
+
+        public double[] getDoubleArray(int length) {
+            double[] values = new double[length];
+            buffer.asDoubleBuffer().get(values);
+            skip((long) length * Double.BYTES);
+            return values;
+        }
+
+        public String getString() {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public StringDictionary getStringDictionary() {
+            StringDictionary dictionary = new StringDictionary();
+            int size = getInt();
+            for (int code = 0; code < size; code++) {
+                dictionary.intern(getString());
+            }
+            return dictionary;
+        }
+
+        public NeighborhoodDictionary getNeighborhoodDictionary() {
+            NeighborhoodDictionary dictionary = new NeighborhoodDictionary();
+            int size = getInt();
+            for (int code = 0; code < size; code++) {
+                dictionary.intern(getInt(), getString(), getString());
+            }
+            return dictionary;
+        }
+
+        public AssessmentClassDictionary getAssessmentClassDictionary() {
+            AssessmentClassDictionary dictionary = new AssessmentClassDictionary();
+            int size = getInt();
+            for (int code = 0; code < size; code++) {
+                int percentage1 = getInt();
+                String name1 = getString();
+                int percentage2 = getInt();
+                String name2 = getString();
+                int percentage3 = getInt();
+                String name3 = getString();
+                dictionary.intern(percentage1, percentage2, percentage3, name1, name2, name3);
+            }
+            return dictionary;
+        }
+
+        // The values stay in the mapped snapshot and are decoded when they are read
+        public LazyStringColumn getLazyStringColumn(int length) {
+            int[] lengths = getIntArray(length);
+            int totalLength = Math.toIntExact(getLong());
+            ByteBuffer bytes = buffer.slice(buffer.position(), totalLength);
+            skip(totalLength);
+            return LazyStringColumn.ofUtf8(bytes, lengths);
+        }
+
+        private void skip(long bytes) {
+            buffer.position(Math.toIntExact(buffer.position() + bytes));
+        }
+    }
+}
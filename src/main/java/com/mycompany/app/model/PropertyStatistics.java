@@ -0,0 +1,13 @@
+package com.mycompany.app.model;
+
+// The figures shown for a set of properties, computed once so they can be kept and shown again
+public record PropertyStatistics(int numberOfRecords, long minValue, long maxValue, long range, long mean, long median) {
+    public static final PropertyStatistics EMPTY = new PropertyStatistics(0, 0, 0, 0, 0, 0);
+
+    // Cached by the assessments, so asking again for the same set is free
+    public static PropertyStatistics of(PropertyAssessments assessments) {
+        return assessments.getStatistics();
+    }
+
+    public boolean isEmpty() {return numberOfRecords == 0;}
+}
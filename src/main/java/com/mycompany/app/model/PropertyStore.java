@@ -0,0 +1,314 @@
+package com.mycompany.app.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+// Column-oriented storage for property assessment records, each field in its own array indexed by row
+// Repeated strings are kept as dictionary codes, and PropertyAssessment objects are views over a row
+public class PropertyStore {
+    public static final int ASSESSMENT_CLASS_SLOTS = AssessmentClassDictionary.SLOTS;
+    public static final PropertyStore EMPTY = new Builder().build();
+
+    private final int size;
+    private final int[] accountIDs;
+    private final int[] suites;
+    private final int[] houseNumbers;
+    private final int[] streetCodes;
+    private final int[] garageCodes;
+    private final int[] neighborhoodCodes;
+    private final long[] assessedValues;
+    private final double[] lats;
+    private final double[] lngs;
+    private final LazyStringColumn points;
+    private final int[] assessmentClassCodes;
+
+    private final StringDictionary streets;
+    private final StringDictionary garages;
+    private final NeighborhoodDictionary neighborhoods;
+    private final AssessmentClassDictionary assessmentClasses;
+
+    private AccountIndex accountIndex; // Built the first time an account is looked up
+
+    private PropertyStore(Builder builder) {
+        size = builder.size;
+        accountIDs = Arrays.copyOf(builder.accountIDs, size);
+        suites = Arrays.copyOf(builder.suites, size);
+        houseNumbers = Arrays.copyOf(builder.houseNumbers, size);
+        streetCodes = Arrays.copyOf(builder.streetCodes, size);
+        garageCodes = Arrays.copyOf(builder.garageCodes, size);
+        neighborhoodCodes = Arrays.copyOf(builder.neighborhoodCodes, size);
+        assessedValues = Arrays.copyOf(builder.assessedValues, size);
+        lats = Arrays.copyOf(builder.lats, size);
+        lngs = Arrays.copyOf(builder.lngs, size);
+        points = builder.points.build();
+        assessmentClassCodes = Arrays.copyOf(builder.assessmentClassCodes, size);
+
+        streets = builder.streets;
+        garages = builder.garages;
+        neighborhoods = builder.neighborhoods;
+        assessmentClasses = builder.assessmentClasses;
+    }
+
+    // Reads the columns back in the order writeTo writes them
+    private PropertyStore(PropertySnapshot.Reader in) {
+        size = in.getInt();
+        streets = in.getStringDictionary();
+        garages = in.getStringDictionary();
+        neighborhoods = in.getNeighborhoodDictionary();
+        assessmentClasses = in.getAssessmentClassDictionary();
+
+        accountIDs = in.getIntArray(size);
+        suites = in.getIntArray(size);
+        houseNumbers = in.getIntArray(size);
+        streetCodes = in.getIntArray(size);
+        garageCodes = in.getIntArray(size);
+        neighborhoodCodes = in.getIntArray(size);
+        assessedValues = in.getLongArray(size);
+        lats = in.getDoubleArray(size);
+        lngs = in.getDoubleArray(size);
+        points = in.getLazyStringColumn(size);
+        assessmentClassCodes = in.getIntArray(size);
+    }
+
+    // Reads a store from the body of a snapshot
+    public static PropertyStore readFrom(PropertySnapshot.Reader in) {
+        return new PropertyStore(in);
+    }
+
+    // Writes the dictionaries and columns of this store to the body of a snapshot
+    public void writeTo(PropertySnapshot.Writer out) throws IOException {
+        out.putInt(size);
+        out.putStringDictionary(streets);
+        out.putStringDictionary(garages);
+        out.putNeighborhoodDictionary(neighborhoods);
+        out.putAssessmentClassDictionary(assessmentClasses);
+
+        out.putIntArray(accountIDs, size);
+        out.putIntArray(suites, size);
+        out.putIntArray(houseNumbers, size);
+        out.putIntArray(streetCodes, size);
+        out.putIntArray(garageCodes, size);
+        out.putIntArray(neighborhoodCodes, size);
+        out.putLongArray(assessedValues, size);
+        out.putDoubleArray(lats, size);
+        out.putDoubleArray(lngs, size);
+        out.putLazyStringColumn(points);
+        out.putIntArray(assessmentClassCodes, size);
+    }
+
+    public int size() {return size;}
+
+    // Returns the account number index of this store, building it the first time
+    public synchronized AccountIndex getAccountIndex() {
+        if (accountIndex == null) {
+            accountIndex = new AccountIndex(this);
+        }
+        return accountIndex;
+    }
+
+    // Column getters:
+    public int getAccountID(int row) {return accountIDs[row];}
+    public long getAssessedValue(int row) {return assessedValues[row];}
+    public double getLat(int row) {return lats[row];}
+    public double getLng(int row) {return lngs[row];}
+    public int getHouseNumber(int row) {return houseNumbers[row];}
+    public int getStreetCode(int row) {return streetCodes[row];}
+    public int getGarageCode(int row) {return garageCodes[row];}
+    public int getNeighborhoodCode(int row) {return neighborhoodCodes[row];}
+    public int getNeighborhoodNameCode(int row) {return neighborhoods.getNameCode(neighborhoodCodes[row]);}
+    public int getWardCode(int row) {return neighborhoods.getWardCode(neighborhoodCodes[row]);}
+    public int getAssessmentClassCode(int row) {return assessmentClassCodes[row];}
+    public int getAssessmentPercentage(int row, int slot) {return assessmentClasses.getPercentage(assessmentClassCodes[row], slot);}
+    public int getAssessmentClassNameCode(int row, int slot) {return assessmentClasses.getNameCode(assessmentClassCodes[row], slot);}
+
+    // Whole columns by row, for filters that loop over blocks of rows. Shared, so they must not be changed
+    public int[] getGarageCodes() {return garageCodes;}
+    public int[] getNeighborhoodCodes() {return neighborhoodCodes;}
+    public int[] getAssessmentClassCodes() {return assessmentClassCodes;}
+    public long[] getAssessedValues() {return assessedValues;}
+
+    public String getGarage(int row) {return garages.valueOf(garageCodes[row]);}
+    public Neighborhood getNeighborhood(int row) {return neighborhoods.valueOf(neighborhoodCodes[row]);}
+    public AssessmentClass getAssessmentClass(int row) {return assessmentClasses.valueOf(assessmentClassCodes[row]);}
+    public String getPoint(int row) {return points.get(row);}
+
+    // Dictionary getters:
+    public StringDictionary getStreets() {return streets;}
+    public StringDictionary getGarages() {return garages;}
+    public NeighborhoodDictionary getNeighborhoods() {return neighborhoods;}
+    public StringDictionary getNeighborhoodNames() {return neighborhoods.getNames();}
+    public StringDictionary getWards() {return neighborhoods.getWards();}
+    public AssessmentClassDictionary getAssessmentClasses() {return assessmentClasses;}
+    public StringDictionary getAssessmentClassNames() {return assessmentClasses.getNames();}
+
+    // Record getters, these create the objects on demand:
+    public Address getAddress(int row) {
+        return new Address(suites[row], houseNumbers[row], streets.valueOf(streetCodes[row]));
+    }
+
+    public Location getLocation(int row) {
+        return new Location(lats[row], lngs[row], points, row);
+    }
+
+    // Collects rows into growable columns
+    public static class Builder {
+        private static final int DEFAULT_CAPACITY = 1024;
+
+        private int size;
+        private int[] accountIDs;
+        private int[] suites;
+        private int[] houseNumbers;
+        private int[] streetCodes;
+        private int[] garageCodes;
+        private int[] neighborhoodCodes;
+        private long[] assessedValues;
+        private double[] lats;
+        private double[] lngs;
+        private final LazyStringColumn.Builder points;
+        private int[] assessmentClassCodes;
+
+        private final StringDictionary streets = new StringDictionary();
+        private final StringDictionary garages = new StringDictionary();
+        private final NeighborhoodDictionary neighborhoods = new NeighborhoodDictionary();
+        private final AssessmentClassDictionary assessmentClasses = new AssessmentClassDictionary();
+
+        public Builder() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public Builder(int capacity) {
+            allocate(Math.max(capacity, 1));
+            points = new LazyStringColumn.Builder(capacity);
+        }
+
+        // Starts from the values of another store's dictionaries, so rows built here use the same codes as that store.
+        // The dictionaries are seeded rather than shared, since the other store may be read while this one is built
+        public Builder(int capacity, PropertyStore dictionariesOf) {
+            this(capacity);
+            streets.internAll(dictionariesOf.streets);
+            garages.internAll(dictionariesOf.garages);
+            neighborhoods.internAll(dictionariesOf.neighborhoods);
+            assessmentClasses.internAll(dictionariesOf.assessmentClasses);
+        }
+
+        public int size() {return size;}
+
+        // The dictionaries the codes passed to addRow refer to:
+        public StringDictionary getStreets() {return streets;}
+        public StringDictionary getGarages() {return garages;}
+        public NeighborhoodDictionary getNeighborhoods() {return neighborhoods;}
+        public AssessmentClassDictionary getAssessmentClasses() {return assessmentClasses;}
+
+        // Registers a buffer the points of rows added with addRow refer to, it must not change while the store is in use
+        public int addPointSource(ByteBuffer buffer, Charset charset) {
+            return points.addSource(buffer, charset);
+        }
+
+        // Adds a row whose strings are already codes of this builder's dictionaries, and whose point is a
+        // range of a source registered with addPointSource
+        public void addRow(int accountID, int suite, int houseNumber, int streetCode, int garageCode,
+                           int neighborhoodCode, long assessedValue, double lat, double lng,
+                           int pointSource, int pointStart, int pointEnd, int assessmentClassCode) {
+            addColumns(accountID, suite, houseNumber, streetCode, garageCode, neighborhoodCode, assessedValue, lat, lng, assessmentClassCode);
+            points.addReference(pointSource, pointStart, pointEnd);
+        }
+
+        private void addColumns(int accountID, int suite, int houseNumber, int streetCode, int garageCode,
+                                int neighborhoodCode, long assessedValue, double lat, double lng, int assessmentClassCode) {
+            ensureCapacity(size + 1);
+            accountIDs[size] = accountID;
+            suites[size] = suite;
+            houseNumbers[size] = houseNumber;
+            streetCodes[size] = streetCode;
+            garageCodes[size] = garageCode;
+            neighborhoodCodes[size] = neighborhoodCode;
+            assessedValues[size] = assessedValue;
+            lats[size] = lat;
+            lngs[size] = lng;
+            assessmentClassCodes[size] = assessmentClassCode;
+            size++;
+        }
+
+        public void add(int accountID, int suite, int houseNumber, String streetName, String garage,
+                        int neighborhoodID, String neighborhoodName, String ward, long assessedValue,
+                        double lat, double lng, String point,
+                        int assessmentPercentage1, int assessmentPercentage2, int assessmentPercentage3,
+                        String assessmentClass1, String assessmentClass2, String assessmentClass3) {
+            addColumns(accountID, suite, houseNumber, streets.intern(streetName), garages.intern(garage),
+                    neighborhoods.intern(neighborhoodID, neighborhoodName, ward), assessedValue, lat, lng,
+                    assessmentClasses.intern(assessmentPercentage1, assessmentPercentage2, assessmentPercentage3,
+                            assessmentClass1, assessmentClass2, assessmentClass3));
+            points.add(point);
+        }
+
+        public void add(int accountID, Address address, String garage, Neighborhood neighborhood,
+                        long assessedValue, Location location, AssessmentClass assessmentClass) {
+            add(accountID, address.getSuite(), address.getHouseNumber(), address.getStreetName(), garage,
+                    neighborhood.getNeighborhoodID(), neighborhood.getNeighborhoodName(), neighborhood.getWard(),
+                    assessedValue, location.getLat(), location.getLng(), location.getPoint(),
+                    assessmentClass.getAssessmentPercentage1(), assessmentClass.getAssessmentPercentage2(), assessmentClass.getAssessmentPercentage3(),
+                    assessmentClass.getAssessmentClass1(), assessmentClass.getAssessmentClass2(), assessmentClass.getAssessmentClass3());
+        }
+
+        // Copies one property into this builder, whether it is a view over a store or holds its own values
+        public void add(PropertyAssessment property) {
+            add(property.getAccountID(), property.getAddress(), property.getGarage(), property.getNeighborhood(),
+                    property.getAssessedValue(), property.getLocation(), property.getAssessmentClass());
+        }
+
+        // Copies one row of an existing store into this builder
+        public void add(PropertyStore store, int row) {
+            add(store.getAccountID(row), store.getAddress(row), store.getGarage(row), store.getNeighborhood(row),
+                    store.getAssessedValue(row), store.getLocation(row), store.getAssessmentClass(row));
+        }
+
+        // Appends every row of another builder, translating its dictionary codes into this builder's
+        public void addAll(Builder other) {
+            ensureCapacity(size + other.size);
+            int[] streetRemap = streets.internAll(other.streets);
+            int[] garageRemap = garages.internAll(other.garages);
+            int[] neighborhoodRemap = neighborhoods.internAll(other.neighborhoods);
+            int[] assessmentClassRemap = assessmentClasses.internAll(other.assessmentClasses);
+
+            System.arraycopy(other.accountIDs, 0, accountIDs, size, other.size);
+            System.arraycopy(other.suites, 0, suites, size, other.size);
+            System.arraycopy(other.houseNumbers, 0, houseNumbers, size, other.size);
+            System.arraycopy(other.assessedValues, 0, assessedValues, size, other.size);
+            System.arraycopy(other.lats, 0, lats, size, other.size);
+            System.arraycopy(other.lngs, 0, lngs, size, other.size);
+            points.addAll(other.points);
+            for (int i = 0; i < other.size; i++) {
+                streetCodes[size + i] = streetRemap[other.streetCodes[i]];
+                garageCodes[size + i] = garageRemap[other.garageCodes[i]];
+                neighborhoodCodes[size + i] = neighborhoodRemap[other.neighborhoodCodes[i]];
+                assessmentClassCodes[size + i] = assessmentClassRemap[other.assessmentClassCodes[i]];
+            }
+            size += other.size;
+        }
+
+        public PropertyStore build() {
+            return new PropertyStore(this);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > accountIDs.length) {
+                allocate(Math.max(capacity, accountIDs.length + (accountIDs.length >> 1)));
+            }
+        }
+
+        private void allocate(int capacity) {
+            accountIDs = accountIDs == null ? new int[capacity] : Arrays.copyOf(accountIDs, capacity);
+            suites = suites == null ? new int[capacity] : Arrays.copyOf(suites, capacity);
+            houseNumbers = houseNumbers == null ? new int[capacity] : Arrays.copyOf(houseNumbers, capacity);
+            streetCodes = streetCodes == null ? new int[capacity] : Arrays.copyOf(streetCodes, capacity);
+            garageCodes = garageCodes == null ? new int[capacity] : Arrays.copyOf(garageCodes, capacity);
+            neighborhoodCodes = neighborhoodCodes == null ? new int[capacity] : Arrays.copyOf(neighborhoodCodes, capacity);
+            assessedValues = assessedValues == null ? new long[capacity] : Arrays.copyOf(assessedValues, capacity);
+            lats = lats == null ? new double[capacity] : Arrays.copyOf(lats, capacity);
+            lngs = lngs == null ? new double[capacity] : Arrays.copyOf(lngs, capacity);
+            assessmentClassCodes = assessmentClassCodes == null ? new int[capacity] : Arrays.copyOf(assessmentClassCodes, capacity);
+        }
+    }
+}
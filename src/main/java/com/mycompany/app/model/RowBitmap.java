@@ -0,0 +1,302 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// A compressed, immutable set of store rows in the style of a Roaring bitmap
+public class RowBitmap {
+    public static final RowBitmap EMPTY = new RowBitmap(new char[0], new Container[0]);
+
+    private static final int MAX_ARRAY_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private final char[] keys; // The high 16 bits of the rows of each container, ascending
+    private final Container[] containers;
+    private final int cardinality;
+
+    private RowBitmap(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+        int count = 0;
+        for (Container container : containers) {
+            count += container.cardinality();
+        }
+        this.cardinality = count;
+    }
+
+    // Unites any number of bitmaps
+    public static RowBitmap or(List<RowBitmap> bitmaps) {
+        RowBitmap result = EMPTY;
+        for (RowBitmap bitmap : bitmaps) {
+            result = result.or(bitmap);
+        }
+        return result;
+    }
+
+    public int getCardinality() {return cardinality;}
+    public boolean isEmpty() {return cardinality == 0;}
+
+    public boolean contains(int row) {
+        int index = Arrays.binarySearch(keys, (char) (row >>> 16));
+        return index >= 0 && containers[index].contains((char) row);
+    }
+
+    // Intersects with another bitmap a block at a time, skipping blocks only one of them has
+    public RowBitmap and(RowBitmap other) {
+        char[] resultKeys = new char[Math.min(keys.length, other.keys.length)];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    resultKeys[count] = keys[i];
+                    resultContainers[count++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new RowBitmap(Arrays.copyOf(resultKeys, count), Arrays.copyOf(resultContainers, count));
+    }
+
+    public RowBitmap or(RowBitmap other) {
+        char[] resultKeys = new char[keys.length + other.keys.length];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j >= other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                resultKeys[count] = keys[i];
+                resultContainers[count++] = containers[i++];
+            } else if (i >= keys.length || keys[i] > other.keys[j]) {
+                resultKeys[count] = other.keys[j];
+                resultContainers[count++] = other.containers[j++];
+            } else {
+                resultKeys[count] = keys[i];
+                resultContainers[count++] = containers[i++].or(other.containers[j++]);
+            }
+        }
+        return new RowBitmap(Arrays.copyOf(resultKeys, count), Arrays.copyOf(resultContainers, count));
+    }
+
+    // Calls the action with every row, in ascending order
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    // Collects rows in ascending order into a bitmap
+    public static class Builder {
+        private char[] keys = new char[16];
+        private Container[] containers = new Container[16];
+        private int count;
+        private int lastRow = -1;
+
+        // The container being filled, as an array until it grows past MAX_ARRAY_SIZE
+        private char[] values = new char[16];
+        private long[] words;
+        private int size;
+
+        public void add(int row) {
+            if (row <= lastRow) {
+                throw new IllegalArgumentException("Rows must be added in ascending order, " + row + " came after " + lastRow + ".");
+            }
+            if (lastRow < 0 || (row >>> 16) != (lastRow >>> 16)) {
+                finishContainer();
+                keys = count == keys.length ? Arrays.copyOf(keys, count * 2) : keys;
+                keys[count] = (char) (row >>> 16);
+            }
+            lastRow = row;
+
+            char low = (char) row;
+            if (words != null) {
+                words[low >>> 6] |= 1L << low;
+            } else if (size == MAX_ARRAY_SIZE) {
+                words = new long[BITMAP_WORDS];
+                for (int i = 0; i < size; i++) {
+                    words[values[i] >>> 6] |= 1L << values[i];
+                }
+                words[low >>> 6] |= 1L << low;
+            } else {
+                values = size == values.length ? Arrays.copyOf(values, size * 2) : values;
+                values[size] = low;
+            }
+            size++;
+        }
+
+        public RowBitmap build() {
+            finishContainer();
+            return new RowBitmap(Arrays.copyOf(keys, count), Arrays.copyOf(containers, count));
+        }
+
+        private void finishContainer() {
+            if (size == 0) {
+                return;
+            }
+            containers = count == containers.length ? Arrays.copyOf(containers, count * 2) : containers;
+            containers[count++] = words != null ? new BitmapContainer(words, size) : new ArrayContainer(Arrays.copyOf(values, size));
+            words = null;
+            size = 0;
+        }
+    }
+
+    private interface Container {
+        int cardinality();
+        boolean contains(char value);
+        Container and(Container other);
+        Container or(Container other);
+        void forEach(int high, IntConsumer action);
+    }
+
+    private record ArrayContainer(char[] values) implements Container {
+        @Override
+        public int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] result = new char[values.length];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < values.length && j < array.values.length) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (char value : values) {
+                    if (other.contains(value)) {
+                        result[count++] = value;
+                    }
+                }
+            }
+            return new ArrayContainer(Arrays.copyOf(result, count));
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            char[] otherValues = ((ArrayContainer) other).values;
+            char[] result = new char[values.length + otherValues.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < otherValues.length) {
+                if (j >= otherValues.length || (i < values.length && values[i] < otherValues[j])) {
+                    result[count++] = values[i++];
+                } else if (i >= values.length || values[i] > otherValues[j]) {
+                    result[count++] = otherValues[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+            if (count > MAX_ARRAY_SIZE) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int k = 0; k < count; k++) {
+                    words[result[k] >>> 6] |= 1L << result[k];
+                }
+                return new BitmapContainer(words, count);
+            }
+            return new ArrayContainer(Arrays.copyOf(result, count));
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (char value : values) {
+                action.accept(high | value);
+            }
+        }
+    }
+
+    private record BitmapContainer(long[] words, int cardinality) implements Container {
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return count > MAX_ARRAY_SIZE ? new BitmapContainer(result, count) : toArrayContainer(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] |= bitmap.words[i];
+                }
+            } else {
+                for (char value : ((ArrayContainer) other).values) {
+                    result[value >>> 6] |= 1L << value;
+                }
+            }
+            int count = 0;
+            for (long word : result) {
+                count += Long.bitCount(word);
+            }
+            return new BitmapContainer(result, count);
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private static ArrayContainer toArrayContainer(long[] words, int count) {
+            char[] values = new char[count];
+            int index = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[index++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values);
+        }
+    }
+}
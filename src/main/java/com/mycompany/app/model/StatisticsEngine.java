@@ -0,0 +1,157 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+
+// Works out the statistics of a set of assessed values without sorting them
+public class StatisticsEngine {
+    // Below this many values a selection finishes with an insertion sort
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    // Computes the statistics of the assessed values of a collection
+    public static PropertyStatistics compute(PropertyAssessments assessments) {
+        PropertyStore store = assessments.getStore();
+        int count = assessments.getNumberOfRecords();
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = store.getAssessedValue(assessments.getRow(i));
+        }
+        return compute(values, count);
+    }
+
+    // The exact percentiles of the assessed values of a collection, nearest rank like KllSketch.getQuantiles
+    public static Percentiles percentiles(PropertyAssessments assessments) {
+        int count = assessments.getNumberOfRecords();
+        if (count == 0) {
+            return Percentiles.EMPTY;
+        }
+        PropertyStore store = assessments.getStore();
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = store.getAssessedValue(assessments.getRow(i));
+        }
+        long[] quantiles = quantiles(values, count, 0.10, 0.25, 0.75, 0.90, 0.99);
+        return new Percentiles(count, quantiles[0], quantiles[1], quantiles[2], quantiles[3], quantiles[4], true);
+    }
+
+    // The nearest rank value of each fraction from 0 to 1 of the first count values, reordering them. The fractions
+    // must be ascending, so each selection only has to search the values the one before left above it
+    public static long[] quantiles(long[] values, int count, double... fractions) {
+        if (count == 0) {
+            throw new IllegalArgumentException("No values to take quantiles of.");
+        }
+        long[] quantiles = new long[fractions.length];
+        int from = 0;
+        double previous = 0;
+        for (int q = 0; q < fractions.length; q++) {
+            double fraction = fractions[q];
+            if (!(fraction >= previous && fraction <= 1)) {
+                throw new IllegalArgumentException("Fractions must be ascending from 0 to 1, was " + fraction + ".");
+            }
+            int k = (int) Math.max(0, Math.ceil(fraction * count) - 1);
+            quantiles[q] = select(values, from, count, k);
+            from = k;
+            previous = fraction;
+        }
+        return quantiles;
+    }
+
+    // Computes the statistics of the first count values of the array, reordering them
+    public static PropertyStatistics compute(long[] values, int count) {
+        if (count == 0) {
+            return PropertyStatistics.EMPTY;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        return new PropertyStatistics(count, min, max, max - min, sum / count, median(values, count));
+    }
+
+    // The median of the first count values, the mean of the middle two for an even count, reordering them
+    public static long median(long[] values, int count) {
+        if (count == 0) {
+            throw new IllegalArgumentException("No values to take the median of.");
+        }
+        int middle = count / 2;
+        long upper = select(values, 0, count, middle);
+        if (count % 2 != 0) {
+            return upper;
+        }
+
+        // The selection left every value below the middle before it, so the lower middle is their maximum
+        long lower = values[0];
+        for (int i = 1; i < middle; i++) {
+            lower = Math.max(lower, values[i]);
+        }
+        return (lower + upper) / 2;
+    }
+
+    // The value that would be at index k if the range were sorted, left at that index. Three-way partitions, sorting
+    // what is left if they keep coming out lopsided
+    public static long select(long[] values, int from, int to, int k) {
+        if (k < from || k >= to) {
+            throw new IndexOutOfBoundsException("Index " + k + " is outside " + from + " to " + to + ".");
+        }
+        return select(values, from, to, k, 2 * (32 - Integer.numberOfLeadingZeros(to - from)));
+    }
+
+    // Partitions at most the given number of rounds before sorting what is left
+    static long select(long[] values, int from, int to, int k, int rounds) {
+        while (to - from > INSERTION_SORT_SIZE) {
+            if (rounds-- == 0) {
+                Arrays.sort(values, from, to);
+                return values[k];
+            }
+            long pivot = medianOfThree(values[from], values[(from + to) >>> 1], values[to - 1]);
+
+            // Values below the pivot end up in [from, less), equal ones in [less, greater), greater ones after
+            int less = from;
+            int greater = to;
+            int i = from;
+            while (i < greater) {
+                long value = values[i];
+                if (value < pivot) {
+                    swap(values, i++, less++);
+                } else if (value > pivot) {
+                    swap(values, i, --greater);
+                } else {
+                    i++;
+                }
+            }
+
+            if (k < less) {
+                to = less;
+            } else if (k >= greater) {
+                from = greater;
+            } else {
+                return pivot;
+            }
+        }
+
+        for (int i = from + 1; i < to; i++) {
+            long value = values[i];
+            int j = i - 1;
+            while (j >= from && values[j] > value) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+        return values[k];
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(long[] values, int i, int j) {
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
@@ -0,0 +1,131 @@
+package com.mycompany.app.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Maps each distinct string to a small integer code, so a column of repeated strings is stored as an int[] of codes
+public class StringDictionary {
+    // Same charset as FileReader and CsvRowParser
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    // Open-addressing table from encoded bytes to codes, a slot holds an index into byteKeys plus one
+    private int[] byteTable = new int[INITIAL_TABLE_SIZE];
+    private byte[][] byteKeys = new byte[INITIAL_TABLE_SIZE / 2][];
+    private int[] byteKeyCodes = new int[INITIAL_TABLE_SIZE / 2];
+    private int byteKeyCount;
+
+    // Returns the code of the given string, adding it to the dictionary if it is new
+    public int intern(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = add(value);
+            addByteKey(value.getBytes(CHARSET), code);
+        }
+        return code;
+    }
+
+    // Returns the code of the string encoded in the range of the buffer, adding it if it is new
+    public int intern(ByteBuffer buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = byteTable.length - 1;
+        for (int slot = hash & mask; byteTable[slot] != 0; slot = (slot + 1) & mask) {
+            int key = byteTable[slot] - 1;
+            if (equals(byteKeys[key], buffer, start, end)) {
+                return byteKeyCodes[key];
+            }
+        }
+
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes, 0, bytes.length);
+        String value = new String(bytes, CHARSET);
+        // Different bytes can decode to the same string, in which case the bytes become another key for it
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = add(value);
+        }
+        addByteKey(bytes, code);
+        return code;
+    }
+
+    // Returns the code of the given string, or -1 if it is not in the dictionary
+    public int codeOf(String value) {
+        return codes.getOrDefault(value, -1);
+    }
+
+    public String valueOf(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    // Adds every string of another dictionary to this one
+    public int[] internAll(StringDictionary other) {
+        int[] remap = new int[other.size()];
+        for (int code = 0; code < remap.length; code++) {
+            remap[code] = intern(other.valueOf(code));
+        }
+        return remap;
+    }
+
+    private int add(String value) {
+        int code = values.size();
+        codes.put(value, code);
+        values.add(value);
+        return code;
+    }
+
+    private void addByteKey(byte[] bytes, int code) {
+        if (byteKeyCount == byteKeys.length) {
+            byteKeys = Arrays.copyOf(byteKeys, byteKeyCount * 2);
+            byteKeyCodes = Arrays.copyOf(byteKeyCodes, byteKeyCount * 2);
+            byteTable = new int[byteTable.length * 2];
+            for (int key = 0; key < byteKeyCount; key++) {
+                insertSlot(hash(ByteBuffer.wrap(byteKeys[key]), 0, byteKeys[key].length), key);
+            }
+        }
+        byteKeys[byteKeyCount] = bytes;
+        byteKeyCodes[byteKeyCount] = code;
+        insertSlot(hash(ByteBuffer.wrap(bytes), 0, bytes.length), byteKeyCount);
+        byteKeyCount++;
+    }
+
+    private void insertSlot(int hash, int key) {
+        int mask = byteTable.length - 1;
+        int slot = hash & mask;
+        while (byteTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        byteTable[slot] = key + 1;
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Counts assessed values into bins of equal width, linear or on a log scale, one block of rows per fork-join task
+// The arrays are reused by the next compute, so compute and read from one thread
+public class ValueHistogram {
+    // How the bins divide the range of values:
+    public enum Scale {
+        LINEAR, // Bins of equal width in dollars
+        LOG     // Bins of equal width in log(value), values below 1 go in the first bin
+    }
+
+    public static final int DEFAULT_BIN_COUNT = 40;
+
+    // Rows per block, large enough that a block's bins stay in cache and the task overhead is small
+    private static final int BLOCK_SIZE = 16_384;
+
+    private final int binCount;
+    private final ForkJoinPool pool;
+    private final long[] counts;
+    private final long[] edges; // binCount + 1 edges, a bin runs from its edge up to the next, the last one including it
+    private long[][] blockCounts = new long[0][];
+    private Scale scale = Scale.LINEAR;
+    private long total;
+    private long maxCount;
+
+    public ValueHistogram() {
+        this(DEFAULT_BIN_COUNT, ForkJoinPool.commonPool());
+    }
+
+    public ValueHistogram(int binCount, ForkJoinPool pool) {
+        if (binCount < 1) {
+            throw new IllegalArgumentException("A histogram needs at least one bin, was " + binCount + ".");
+        }
+        this.binCount = binCount;
+        this.pool = pool;
+        this.counts = new long[binCount];
+        this.edges = new long[binCount + 1];
+    }
+
+    // Counts the assessed values of the collection into bins spanning min to max
+    public void compute(PropertyAssessments assessments, long min, long max, Scale scale) {
+        this.scale = scale;
+        computeEdges(min, Math.max(min, max), scale);
+
+        int size = assessments.getNumberOfRecords();
+        int blocks = Math.max(1, (size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        if (blockCounts.length < blocks) {
+            long[][] grown = Arrays.copyOf(blockCounts, blocks);
+            for (int block = blockCounts.length; block < blocks; block++) {
+                grown[block] = new long[binCount];
+            }
+            blockCounts = grown;
+        }
+
+        if (blocks == 1) {
+            countBlock(assessments, 0);
+        } else {
+            pool.invoke(new CountBlocks(this, assessments, 0, blocks));
+        }
+
+        Arrays.fill(counts, 0);
+        for (int block = 0; block < blocks; block++) {
+            for (int bin = 0; bin < binCount; bin++) {
+                counts[bin] += blockCounts[block][bin];
+            }
+        }
+        total = size;
+        maxCount = 0;
+        for (long count : counts) {
+            maxCount = Math.max(maxCount, count);
+        }
+    }
+
+    public int getBinCount() {return binCount;}
+    public Scale getScale() {return scale;}
+    public long getTotal() {return total;}
+    public long getMaxCount() {return maxCount;}
+
+    // The number of values in each bin
+    public long[] getCounts() {return counts;}
+
+    // The edges of the bins, one more than there are bins
+    public long[] getEdges() {return edges;}
+
+    private void countBlock(PropertyAssessments assessments, int block) {
+        long[] binCounts = blockCounts[block];
+        Arrays.fill(binCounts, 0);
+        PropertyStore store = assessments.getStore();
+        int end = Math.min(assessments.getNumberOfRecords(), (block + 1) * BLOCK_SIZE);
+        for (int i = block * BLOCK_SIZE; i < end; i++) {
+            binCounts[binOf(store.getAssessedValue(assessments.getRow(i)))]++;
+        }
+    }
+
+    // The last edge at or below the value, found by binary search so neither scale needs a division or log per value
+    private int binOf(long value) {
+        int low = 1;
+        int high = binCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (edges[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    // Worked out in doubles, so a range as wide as a long doesn't overflow
+    private void computeEdges(long min, long max, Scale scale) {
+        edges[0] = min;
+        edges[binCount] = max;
+        double logLow = Math.log(Math.max(min, 1));
+        double logHigh = Math.log(Math.max(max, 1));
+        for (int bin = 1; bin < binCount; bin++) {
+            double fraction = (double) bin / binCount;
+            double edge = scale == Scale.LOG
+                    ? Math.exp(logLow + (logHigh - logLow) * fraction)
+                    : min + ((double) max - min) * fraction;
+            edges[bin] = Math.max(edges[bin - 1], Math.min(max, (long) edge));
+        }
+    }
+
+    // Splits the blocks in halves until each task counts one. Static, so the only state it carries is its fields
+    private static class CountBlocks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ValueHistogram histogram;
+        private final PropertyAssessments assessments;
+        private final int from;
+        private final int to;
+
+        CountBlocks(ValueHistogram histogram, PropertyAssessments assessments, int from, int to) {
+            this.histogram = histogram;
+            this.assessments = assessments;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                histogram.countBlock(assessments, from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CountBlocks(histogram, assessments, from, middle),
+                    new CountBlocks(histogram, assessments, middle, to));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mycompany.app.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// The rows of a store sorted by assessed value, so a price comparison is a binary search for a range of them
+public class ValueIndex {
+    private final PropertyStore store;
+    private final long[] sortedValues;
+    private final int[] sortedRows;
+
+    public ValueIndex(PropertyStore store) {
+        this.store = store;
+        int size = store.size();
+        sortedValues = new long[size];
+        sortedRows = new int[size];
+        if (size == 0) {
+            return;
+        }
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            min = Math.min(min, store.getAssessedValue(row));
+            max = Math.max(max, store.getAssessedValue(row));
+        }
+
+        // Values and rows usually fit together in one long, which sorts without boxing
+        int rowBits = 32 - Integer.numberOfLeadingZeros(size - 1);
+        long spread = max - min;
+        if (spread >= 0 && spread < 1L << (63 - rowBits)) {
+            long[] keys = new long[size];
+            for (int row = 0; row < size; row++) {
+                keys[row] = (store.getAssessedValue(row) - min) << rowBits | row;
+            }
+            Arrays.sort(keys);
+            long rowMask = (1L << rowBits) - 1;
+            for (int i = 0; i < size; i++) {
+                sortedRows[i] = (int) (keys[i] & rowMask);
+                sortedValues[i] = (keys[i] >>> rowBits) + min;
+            }
+        } else {
+            int[] rows = IntStream.range(0, size).boxed()
+                    .sorted((a, b) -> Long.compare(store.getAssessedValue(a), store.getAssessedValue(b)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            for (int i = 0; i < size; i++) {
+                sortedRows[i] = rows[i];
+                sortedValues[i] = store.getAssessedValue(rows[i]);
+            }
+        }
+    }
+
+    public PropertyStore getStore() {return store;}
+    public int size() {return sortedRows.length;}
+
+    // The position of the first value at or above the given value
+    public int lowerBound(long value) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The position of the first value above the given value
+    public int upperBound(long value) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public int getRow(int position) {return sortedRows[position];}
+}
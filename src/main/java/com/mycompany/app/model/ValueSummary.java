@@ -0,0 +1,75 @@
+package com.mycompany.app.model;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import java.util.stream.Collector;
+
+// Count, minimum, maximum and sum of a set of assessed values
+public class ValueSummary implements LongConsumer {
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long sum;
+
+    // Summarizes the assessed values of every row of a store
+    public static ValueSummary ofAssessedValues(PropertyStore store) {
+        ValueSummary summary = new ValueSummary();
+        for (int row = 0; row < store.size(); row++) {
+            summary.accept(store.getAssessedValue(row));
+        }
+        return summary;
+    }
+
+    // Collects the assessed values of a stream of properties
+    public static Collector<PropertyAssessment, ValueSummary, ValueSummary> assessedValues() {
+        return Collector.of(ValueSummary::new, (summary, property) -> summary.accept(property.getAssessedValue()),
+                ValueSummary::combine, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    @Override
+    public void accept(long value) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+    }
+
+    // Adds the values of another summary to this one
+    public ValueSummary combine(ValueSummary other) {
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        return this;
+    }
+
+    public long getCount() {return count;}
+    public long getSum() {return sum;}
+    public boolean isEmpty() {return count == 0;}
+
+    public long getMin() {
+        checkNotEmpty();
+        return min;
+    }
+
+    public long getMax() {
+        checkNotEmpty();
+        return max;
+    }
+
+    public long getRange() {
+        return getMax() - getMin();
+    }
+
+    // Whole dollars, like the rest of the statistics
+    public long getMean() {
+        checkNotEmpty();
+        return sum / count;
+    }
+
+    private void checkNotEmpty() {
+        if (count == 0) {
+            throw new NoSuchElementException("No values have been summarized.");
+        }
+    }
+}
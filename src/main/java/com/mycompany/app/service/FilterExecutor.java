@@ -0,0 +1,51 @@
+package com.mycompany.app.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs filter tasks one at a time on a single background thread, so at most one query is ever running.
+// Tasks are JavaFX Tasks in the app, any RunnableFuture will do
+public class FilterExecutor {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "property-filter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private RunnableFuture<?> latest;
+
+    // Queues a task to run after the current one, cancelling whatever was submitted before it
+    public synchronized void submit(RunnableFuture<?> task) {
+        if (latest != null && latest.cancel(true)) {
+            cancelledCount.incrementAndGet();
+        }
+        latest = task;
+        submittedCount.incrementAndGet();
+        queueDepth.incrementAndGet();
+        executor.execute(() -> {
+            queueDepth.decrementAndGet();
+            task.run(); // Returns at once if the task was cancelled while it waited
+        });
+    }
+
+    // Whether a finished task's result is the one to show, only the latest task submitted is
+    public synchronized boolean acceptResult(RunnableFuture<?> task) {
+        if (task == latest) {
+            return true;
+        }
+        discardedCount.incrementAndGet();
+        return false;
+    }
+
+    // Tasks submitted but not yet taken up by the filter thread, cancelled ones included
+    public int getQueueDepth() {return queueDepth.get();}
+    public long getSubmittedCount() {return submittedCount.get();}
+    public long getCancelledCount() {return cancelledCount.get();}
+    public long getDiscardedCount() {return discardedCount.get();}
+}
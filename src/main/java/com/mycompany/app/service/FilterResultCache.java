@@ -0,0 +1,107 @@
+package com.mycompany.app.service;
+
+import com.mycompany.app.model.Percentiles;
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStatistics;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Keeps the results of recent filter queries, so going back to a filter shows it without computing it again
+public class FilterResultCache {
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    // The rough cost of an entry besides its rows: the map entry, the result and its statistics
+    private static final long ENTRY_OVERHEAD_BYTES = 512;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<PropertyQuery, FilterResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long estimatedBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public FilterResultCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public FilterResultCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Cache limits must be positive.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    // Returns the cached result of the query, or computes and caches it
+    public FilterResult get(PropertyQuery query, Function<PropertyQuery, FilterResult> filter) {
+        synchronized (this) {
+            FilterResult result = results.get(query);
+            if (result != null) {
+                hitCount++;
+                return result;
+            }
+            missCount++;
+        }
+
+        FilterResult result = filter.apply(query);
+        put(query, result);
+        return result;
+    }
+
+    public synchronized void put(PropertyQuery query, FilterResult result) {
+        FilterResult previous = results.put(query, result);
+        if (previous != null) {
+            estimatedBytes -= previous.estimateBytes();
+        }
+        estimatedBytes += result.estimateBytes();
+
+        // Drop from the least recently used end, but always keep the result just added
+        Iterator<Map.Entry<PropertyQuery, FilterResult>> eldest = results.entrySet().iterator();
+        while (results.size() > 1 && (results.size() > maxEntries || estimatedBytes > maxBytes)) {
+            estimatedBytes -= eldest.next().getValue().estimateBytes();
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        estimatedBytes = 0;
+    }
+
+    public synchronized int size() {return results.size();}
+    public synchronized long getEstimatedBytes() {return estimatedBytes;}
+    public synchronized long getHitCount() {return hitCount;}
+    public synchronized long getMissCount() {return missCount;}
+    public synchronized long getEvictionCount() {return evictionCount;}
+
+    // What a filter query produced: the properties, their statistics and percentiles, and the legend center
+    public record FilterResult(PropertyQuery query, PropertyAssessments assessments, PropertyStatistics statistics,
+                               Percentiles percentiles, long legendCenter) {
+        public static FilterResult of(PropertyQuery query, PropertyAssessments assessments) {
+            return of(query, assessments, Percentiles.of(assessments));
+        }
+
+        public static FilterResult of(PropertyQuery query, PropertyAssessments assessments, Percentiles percentiles) {
+            PropertyStatistics statistics = PropertyStatistics.of(assessments);
+            return new FilterResult(query, assessments, statistics, percentiles, statistics.median());
+        }
+
+        // The same properties colored around another value, not cached
+        public FilterResult withLegendCenter(long center) {
+            return new FilterResult(query, assessments, statistics, percentiles, center);
+        }
+
+        public boolean isEmpty() {return statistics.isEmpty();}
+
+        // The full collection shares its store, so only a subset's row array is counted
+        long estimateBytes() {
+            return ENTRY_OVERHEAD_BYTES + (assessments.hasAllRows() ? 0 : 4L * assessments.getNumberOfRecords());
+        }
+    }
+}
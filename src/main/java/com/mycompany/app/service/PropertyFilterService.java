@@ -1,14 +1,542 @@
 package com.mycompany.app.service;
 
-import com.mycompany.app.model.PropertyAssessment;
+import com.mycompany.app.model.AssessmentClassIndex;
+import com.mycompany.app.model.KllSketch;
+import com.mycompany.app.model.NeighborhoodDictionary;
+import com.mycompany.app.model.Percentiles;
 import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyIndexes;
+import com.mycompany.app.model.PropertyStore;
+import com.mycompany.app.model.RowBitmap;
+import com.mycompany.app.model.StringDictionary;
+import com.mycompany.app.model.ValueIndex;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 public class PropertyFilterService {
+    // How a pass checks rows against the filters:
+    public enum Evaluation {
+        BATCHED, // A block of rows at a time, each filter one branch-free loop over the block
+        SCALAR   // A row at a time through every filter, kept to compare against
+    }
+
+    // How many rows a pass visits between checks for cancellation, a power of two
+    private static final int CANCELLATION_CHECK_INTERVAL = 4096;
+    // Rows per block of a batched pass, a power of two no larger than the cancellation interval
+    private static final int BATCH_SIZE = 1024;
+
+    private final PropertyIndexes indexes;
+    private final Evaluation evaluation;
+
+    public PropertyFilterService() {
+        this(null);
+    }
+
+    /**
+     * Creates a filter service that answers filters on the indexed store from its bitmaps.
+     *
+     * @param indexes The bitmap indexes of the loaded store, or null to always scan.
+     */
+    public PropertyFilterService(PropertyIndexes indexes) {
+        this(indexes, Evaluation.BATCHED);
+    }
+
+    public PropertyFilterService(PropertyIndexes indexes, Evaluation evaluation) {
+        this.indexes = indexes;
+        this.evaluation = evaluation;
+    }
+
+    /**
+     * Runs every filter of the query in a single pass over the rows, most selective filter first.
+     *
+     * @param assessments The property assessments to filter.
+     * @param query       The filters to apply.
+     * @return The properties matching every filter, or the given assessments if the query is empty.
+     */
+    public PropertyAssessments filter(PropertyAssessments assessments, PropertyQuery query) {
+        List<RowFilter> filters = compile(assessments.getStore(), query);
+        if (filters.isEmpty()) {
+            return assessments; // No filtering applied
+        }
+        return new PropertyAssessments(assessments.getStore(), matchingRows(assessments, filters, null));
+    }
+
+    /**
+     * Runs a query starting from the previous query's result when it narrows or widens that query.
+     *
+     * @param assessments    Every property the queries search.
+     * @param previousQuery  The query that was run last.
+     * @param previousResult Its result over the same assessments.
+     * @param query          The query to run now.
+     */
+    public PropertyAssessments refine(PropertyAssessments assessments, PropertyQuery previousQuery,
+                                      PropertyAssessments previousResult, PropertyQuery query) {
+        if (query.equals(previousQuery)) {
+            return previousResult;
+        }
+        PropertyStore store = assessments.getStore();
+        boolean indexed = indexes != null && indexes.getStore() == store;
+
+        if (query.narrows(previousQuery)) {
+            List<RowFilter> freshFilters = compile(store, query);
+            if (previousResult.getNumberOfRecords() <= drivenRows(assessments, freshFilters)) {
+                return filter(previousResult, query.withoutSharedFilters(previousQuery));
+            }
+            return new PropertyAssessments(store, matchingRows(assessments, freshFilters, null));
+        }
+        if (!previousQuery.narrows(query) || query.isEmpty()) {
+            return filter(assessments, query);
+        }
+
+        int[] addedRows;
+        PropertyQuery relaxed = previousQuery.withoutSharedFilters(query);
+        if (indexed) {
+            // Only the rows the relaxed filter newly lets through are visited, and checked against the rest of the query.
+            // A fresh pass would be driven by the unchanged filters or by more rows than were gained, so the gained rows
+            // are only worth walking when there are fewer of them than the unchanged filters have
+            PropertyQuery unchanged = relaxed.hasPrice() ? query.withPrice(null, null, null)
+                    : relaxed.hasGarage() ? query.withGarage(null)
+                    : query.withCriteria(null, List.of());
+            List<RowFilter> filters = compile(store, unchanged);
+            RowFilter gainedFilter = gainedFilter(store, relaxed, previousQuery, query, drivenRows(assessments, filters) - 1);
+            if (gainedFilter == null) {
+                PropertyQuery relaxedNow = relaxed.hasPrice() ? PropertyQuery.ALL.withPrice(query.priceComparison(), query.price(), query.upperPrice())
+                        : relaxed.hasGarage() ? PropertyQuery.ALL.withGarage(query.garage())
+                        : PropertyQuery.ALL.withCriteria(query.filterType(), query.filterValues()).withMinimumShare(query.minimumShare());
+                filters.addAll(compile(store, relaxedNow));
+                filters.sort(Comparator.comparingInt(RowFilter::estimatedRows));
+                return new PropertyAssessments(store, matchingRows(assessments, filters, null));
+            }
+            filters.add(gainedFilter);
+            filters.sort(Comparator.comparingInt(RowFilter::estimatedRows));
+            addedRows = matchingRows(assessments, filters, null);
+        } else {
+            IntPredicate[] relaxedChecks = compile(store, relaxed).stream().map(RowFilter::matches).toArray(IntPredicate[]::new);
+            IntPredicate excludedBefore = row -> {
+                for (IntPredicate check : relaxedChecks) {
+                    if (!check.test(row)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+            addedRows = matchingRows(assessments, compile(store, query), excludedBefore);
+        }
+        return new PropertyAssessments(store, mergeRows(previousResult, addedRows));
+    }
+
+    // How many rows a pass over the compiled filters would visit
+    private static int drivenRows(PropertyAssessments assessments, List<RowFilter> filters) {
+        return filters.stream().filter(filter -> filter.rows() != null)
+                .mapToInt(RowFilter::estimatedRows).findFirst().orElse(assessments.getNumberOfRecords());
+    }
+
+    // Merges the rows of the previous result with the added ones, both in file order and sharing none
+    private static int[] mergeRows(PropertyAssessments previousResult, int[] addedRows) {
+        int previousCount = previousResult.getNumberOfRecords();
+        int[] rows = new int[previousCount + addedRows.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < rows.length; k++) {
+            if (j == addedRows.length || (i < previousCount && previousResult.getRow(i) < addedRows[j])) {
+                rows[k] = previousResult.getRow(i++);
+            } else {
+                rows[k] = addedRows[j++];
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sketches a group selection's result from the aggregate cube, without reading its rows.
+     *
+     * @param assessments Every property the query searches.
+     * @return The merged cell sketches, or null if the query has a price or assessment class filter, or the
+     *         assessments aren't the full indexed store.
+     */
+    public KllSketch aggregate(PropertyAssessments assessments, PropertyQuery query) {
+        PropertyStore store = assessments.getStore();
+        boolean indexed = indexes != null && indexes.getStore() == store && assessments.hasAllRows();
+        boolean groupCriteria = !query.hasCriteria() || query.filterType().equals("Neighborhood") || query.filterType().equals("Ward");
+        if (!indexed || !groupCriteria || query.hasPrice()) {
+            return null;
+        }
+
+        boolean[] neighborhoods = null;
+        if (query.hasCriteria()) {
+            boolean byName = query.filterType().equals("Neighborhood");
+            boolean[] selected = selectedCodes(byName ? store.getNeighborhoodNames() : store.getWards(), query.filterValues());
+            NeighborhoodDictionary dictionary = store.getNeighborhoods();
+            neighborhoods = new boolean[dictionary.size()];
+            for (int code = 0; code < neighborhoods.length; code++) {
+                neighborhoods[code] = selected[byName ? dictionary.getNameCode(code) : dictionary.getWardCode(code)];
+            }
+        }
+        boolean[] garages = query.hasGarage() ? selectedCodes(store.getGarages(), List.of(query.garage())) : null;
+        return indexes.getAggregates().aggregate(neighborhoods, garages);
+    }
+
+    /**
+     * Returns the percentiles of a query's result, estimated from the aggregate cube's merged cells for a group
+     * selection and exact from the rows otherwise, including for every row, which the load task works out.
+     *
+     * @param assessments Every property the query searched.
+     * @param query       The query that was run.
+     * @param result      What it found.
+     */
+    public Percentiles getPercentiles(PropertyAssessments assessments, PropertyQuery query, PropertyAssessments result) {
+        KllSketch sketch = result.hasAllRows() ? null : aggregate(assessments, query);
+        return sketch != null ? Percentiles.of(sketch) : result.getPercentiles();
+    }
+
+    private static boolean[] selectedCodes(StringDictionary dictionary, List<String> values) {
+        boolean[] selected = new boolean[dictionary.size()];
+        for (String value : values) {
+            int code = dictionary.codeOf(value);
+            if (code >= 0) {
+                selected[code] = true;
+            }
+        }
+        return selected;
+    }
+
+    // The rows a widened query lets through that the previous one didn't, listed from the index postings of what the
+    // single relaxed filter newly allows. Null when more than one filter was relaxed, the postings can't list them or
+    // they hold more than the row limit
+    private RowFilter gainedFilter(PropertyStore store, PropertyQuery relaxed, PropertyQuery previousQuery, PropertyQuery query,
+                                   int rowLimit) {
+        if (rowLimit <= 0) {
+            return null;
+        }
+        int relaxedFilters = (relaxed.hasCriteria() ? 1 : 0) + (relaxed.hasGarage() ? 1 : 0) + (relaxed.hasPrice() ? 1 : 0);
+        if (relaxedFilters != 1) {
+            return null;
+        }
+        if (relaxed.hasPrice()) {
+            RowFilter gainedPrices = gainedPriceFilter(store, previousQuery.priceRange(), query.priceRange());
+            return gainedPrices.estimatedRows() <= rowLimit ? gainedPrices : null;
+        }
+        if (relaxed.hasGarage()) {
+            return gainedGarageFilter(store, previousQuery.garage(), rowLimit);
+        }
+        return gainedCriteriaFilter(store, previousQuery, query, rowLimit);
+    }
+
+    // Dropping the garage filter lets through the rows with every other garage value
+    private RowFilter gainedGarageFilter(PropertyStore store, String previousGarage, int rowLimit) {
+        if (store.size() - indexes.getGarage(previousGarage).getCardinality() > rowLimit) {
+            return null;
+        }
+        StringDictionary garages = store.getGarages();
+        boolean[] otherCodes = new boolean[garages.size()];
+        List<RowBitmap> otherGarages = new ArrayList<>();
+        for (int code = 0; code < garages.size(); code++) {
+            if (!garages.valueOf(code).equals(previousGarage)) {
+                otherCodes[code] = true;
+                otherGarages.add(indexes.getGarage(garages.valueOf(code)));
+            }
+        }
+        return bitmapFilter(codeFilter(store.getGarageCodes(), otherCodes, 0), RowBitmap.or(otherGarages));
+    }
+
+    // A criteria filter that gained values lets through the rows of those values that had none of the previous ones.
+    // A lowered class share is left to a fresh pass, whose share postings list fewer rows than the class bitmaps would
+    private RowFilter gainedCriteriaFilter(PropertyStore store, PropertyQuery previousQuery, PropertyQuery query, int rowLimit) {
+        String filterType = previousQuery.filterType();
+        List<String> previousValues = previousQuery.filterValues();
+        boolean assessmentClass = filterType.equals("Assessment Class");
+        if (previousQuery.minimumShare() != null) {
+            return null;
+        }
+        StringDictionary dictionary = switch (filterType) {
+            case "Neighborhood" -> store.getNeighborhoodNames();
+            case "Ward" -> store.getWards();
+            default -> null;
+        };
+
+        List<String> candidateValues;
+        if (query.hasCriteria()) {
+            candidateValues = query.filterValues().stream().filter(value -> !previousValues.contains(value)).toList();
+        } else if (dictionary != null) {
+            candidateValues = new ArrayList<>();
+            for (int code = 0; code < dictionary.size(); code++) {
+                if (!previousValues.contains(dictionary.valueOf(code))) {
+                    candidateValues.add(dictionary.valueOf(code));
+                }
+            }
+        } else {
+            return null; // Rows listing no class are in no posting, so dropping a class filter takes a full pass
+        }
+        List<RowBitmap> candidates = candidateValues.stream().map(value -> valueRows(filterType, value)).toList();
+        if (candidates.stream().mapToLong(RowBitmap::getCardinality).sum() > rowLimit) {
+            return null;
+        }
+
+        // Without shares a row matches by listing any of the values, so only a class row can list a value on both sides
+        IntPredicate before = criteriaFilter(store, false, filterType, previousValues, 0).matches();
+        IntPredicate now = query.hasCriteria() ? criteriaFilter(store, false, filterType, query.filterValues(), 0).matches() : row -> true;
+        IntPredicate matches = row -> now.test(row) && !before.test(row);
+        RowBitmap rows = RowBitmap.or(candidates);
+        if (!assessmentClass) {
+            return bitmapFilter(new RowFilter(matches, 0, null), rows);
+        }
+        return new RowFilter(matches, rows.getCardinality(), action -> rows.forEach(row -> {
+            if (!before.test(row)) {
+                action.accept(row);
+            }
+        }));
+    }
+
+    private static int shareOrZero(PropertyQuery query) {
+        return query.minimumShare() == null ? 0 : query.minimumShare();
+    }
+
+    // The rows a widened price range lets through that the narrower one didn't, at most two runs of the value index
+    private RowFilter gainedPriceFilter(PropertyStore store, long[] previousRange, long[] range) {
+        ValueIndex index = indexes.getAssessedValues();
+        boolean previousEmpty = previousRange[0] > previousRange[1];
+        IntPredicate matches = row -> {
+            long value = store.getAssessedValue(row);
+            boolean previouslyIn = !previousEmpty && value >= previousRange[0] && value <= previousRange[1];
+            return value >= range[0] && value <= range[1] && !previouslyIn;
+        };
+
+        int[] positions = previousEmpty
+                ? new int[]{index.lowerBound(range[0]), index.upperBound(range[1]), 0, 0}
+                : new int[]{index.lowerBound(range[0]), index.lowerBound(previousRange[0]),
+                            index.upperBound(previousRange[1]), index.upperBound(range[1])};
+        int gainedRows = positions[1] - positions[0] + positions[3] - positions[2];
+        return new RowFilter(matches, gainedRows, action -> {
+            for (int run = 0; run < positions.length; run += 2) {
+                for (int position = positions[run]; position < positions[run + 1]; position++) {
+                    action.accept(index.getRow(position));
+                }
+            }
+        });
+    }
+
+    // Compiles the filters of a query against a store, the ones expected to keep the fewest rows first
+    private List<RowFilter> compile(PropertyStore store, PropertyQuery query) {
+        boolean indexed = indexes != null && indexes.getStore() == store;
+        List<RowFilter> filters = new ArrayList<>();
+        if (query.hasCriteria()) {
+            filters.add(criteriaFilter(store, indexed, query.filterType(), query.filterValues(), shareOrZero(query)));
+        }
+        if (query.hasGarage()) {
+            filters.add(garageFilter(store, indexed, query.garage()));
+        }
+        if (query.hasPrice()) {
+            RowFilter priceFilter = priceFilter(store, indexed, query.priceComparison(), query.priceRange());
+            if (priceFilter != null) {
+                filters.add(priceFilter);
+            }
+        }
+        filters.sort(Comparator.comparingInt(RowFilter::estimatedRows));
+        return filters;
+    }
+
+    // The single fused pass: rows of the assessments matching every filter and the optional last check.
+    // A pass on a thread that gets interrupted, such as a cancelled filter task, stops within a few thousand rows.
+    private int[] matchingRows(PropertyAssessments assessments, List<RowFilter> filters, IntPredicate lastCheck) {
+        List<RowFilter> checked = new ArrayList<>(filters);
+        RowFilter driver = null;
+        if (assessments.hasAllRows()) {
+            // Two or more indexed group filters are intersected a block at a time rather than row by row
+            List<RowFilter> bitmapFilters = checked.stream().filter(filter -> filter.bitmap() != null).toList();
+            if (bitmapFilters.size() > 1) {
+                RowBitmap rows = bitmapFilters.get(0).bitmap();
+                for (int i = 1; i < bitmapFilters.size(); i++) {
+                    rows = rows.and(bitmapFilters.get(i).bitmap());
+                }
+                checked.removeAll(bitmapFilters);
+                checked.add(bitmapFilter(new RowFilter(rows::contains, 0, null), rows));
+                checked.sort(Comparator.comparingInt(RowFilter::estimatedRows));
+            }
+            driver = checked.stream().filter(filter -> filter.rows() != null).findFirst().orElse(null);
+            checked.remove(driver);
+        }
+        if (lastCheck != null) {
+            checked.add(new RowFilter(lastCheck, 0, null));
+        }
+
+        int[] filteredRows = new int[driver != null ? driver.estimatedRows() : assessments.getNumberOfRecords()];
+        RowCollector collect = evaluation == Evaluation.BATCHED
+                ? new BatchCollector(checked, filteredRows)
+                : new ScalarCollector(checked, filteredRows);
+        if (driver != null) {
+            driver.rows().forEach(collect);
+        } else {
+            collect.acceptAll(assessments);
+        }
+        int count = collect.finish();
+
+        // Value index runs come in value order and class postings by share, so put their rows back in file order
+        if (driver != null && driver.bitmap() == null) {
+            Arrays.sort(filteredRows, 0, count);
+        }
+        return Arrays.copyOf(filteredRows, count);
+    }
+
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The filter was cancelled.");
+        }
+    }
+
+    // Takes the candidate rows of a pass and keeps the ones matching every filter
+    private interface RowCollector extends IntConsumer {
+        default void acceptAll(PropertyAssessments assessments) {
+            for (int i = 0; i < assessments.getNumberOfRecords(); i++) {
+                accept(assessments.getRow(i));
+            }
+        }
+
+        // Ends the pass and returns how many rows matched
+        int finish();
+    }
+
+    // Checks each row through every filter as it comes
+    private static final class ScalarCollector implements RowCollector {
+        private final IntPredicate[] checks;
+        private final int[] filteredRows;
+        private int count;
+        private int visited;
+
+        ScalarCollector(List<RowFilter> filters, int[] filteredRows) {
+            this.checks = filters.stream().map(RowFilter::matches).toArray(IntPredicate[]::new);
+            this.filteredRows = filteredRows;
+        }
+
+        @Override
+        public void accept(int row) {
+            if ((++visited & (CANCELLATION_CHECK_INTERVAL - 1)) == 0) {
+                checkCancelled();
+            }
+            for (IntPredicate check : checks) {
+                if (!check.test(row)) {
+                    return;
+                }
+            }
+            filteredRows[count++] = row;
+        }
+
+        @Override
+        public int finish() {
+            return count;
+        }
+    }
+
+    // Gathers rows into a block and runs every filter over the full block at once
+    private static final class BatchCollector implements RowCollector {
+        private final BatchCheck[] checks;
+        private final int[] filteredRows;
+        private final int[] batch = new int[BATCH_SIZE];
+        private int filled;
+        private int count;
+        private int batches;
+
+        BatchCollector(List<RowFilter> filters, int[] filteredRows) {
+            this.checks = filters.stream().map(RowFilter::batch).toArray(BatchCheck[]::new);
+            this.filteredRows = filteredRows;
+        }
+
+        @Override
+        public void accept(int row) {
+            batch[filled++] = row;
+            if (filled == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        // Fills whole blocks straight from the collection, rather than a call per row
+        @Override
+        public void acceptAll(PropertyAssessments assessments) {
+            int total = assessments.getNumberOfRecords();
+            for (int start = filled; start < total; start += BATCH_SIZE) {
+                int end = Math.min(start + BATCH_SIZE, total);
+                for (int i = start; i < end; i++) {
+                    batch[i - start] = assessments.getRow(i);
+                }
+                filled = end - start;
+                flush();
+            }
+        }
+
+        // The last block is usually only partly filled
+        @Override
+        public int finish() {
+            flush();
+            return count;
+        }
+
+        private void flush() {
+            if ((++batches & (CANCELLATION_CHECK_INTERVAL / BATCH_SIZE - 1)) == 0) {
+                checkCancelled();
+            }
+            int kept = filled;
+            for (int i = 0; i < checks.length && kept > 0; i++) {
+                kept = checks[i].retain(batch, kept);
+            }
+            System.arraycopy(batch, 0, filteredRows, count, kept);
+            count += kept;
+            filled = 0;
+        }
+    }
+
+    // Moves the rows of a block that pass a filter to its front, in order, and returns how many there are. The row is
+    // always written and the count bumped by the result, so the loops don't branch on it
+    private interface BatchCheck {
+        int retain(int[] rows, int count);
+    }
+
+    // Rows whose code in a column is selected, a table lookup per row with no call
+    private record CodeCheck(int[] codes, boolean[] selected) implements BatchCheck {
+        @Override
+        public int retain(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += selected[codes[row]] ? 1 : 0;
+            }
+            return kept;
+        }
+    }
+
+    // Rows whose value in a column is within an inclusive range
+    private record RangeCheck(long[] values, long low, long high) implements BatchCheck {
+        @Override
+        public int retain(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                long value = values[row];
+                rows[kept] = row;
+                kept += (value >= low) & (value <= high) ? 1 : 0;
+            }
+            return kept;
+        }
+    }
+
+    // Any other filter, checked through its predicate
+    private record PredicateCheck(IntPredicate matches) implements BatchCheck {
+        @Override
+        public int retain(int[] rows, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                rows[kept] = row;
+                kept += matches.test(row) ? 1 : 0;
+            }
+            return kept;
+        }
+    }
 
     /**
      * Filters properties based on the given criteria.
@@ -19,27 +547,103 @@ public class PropertyFilterService {
      * @return A list of filtered properties.
      */
     public PropertyAssessments filterByCriteria(PropertyAssessments assessments, String filterType, String filterValue) {
-        List<PropertyAssessment> filteredProperties = assessments.getProperties().stream()
-                .filter(property -> matchesFilter(property, filterType, filterValue))
-                .collect(Collectors.toList());
-
-        return new PropertyAssessments(filteredProperties);
+        return filter(assessments, PropertyQuery.ALL.withCriteria(filterType, filterValue));
     }
 
     public PropertyAssessments filterWithAllCriteria(PropertyAssessments assessments, String filterType, String filterValue, String garageFilter) {
-        PropertyAssessments filteredByCriteria = filterByCriteria(assessments, filterType, filterValue);
-        return filterByGarage(filteredByCriteria, garageFilter);
+        return filter(assessments, PropertyQuery.ALL.withCriteria(filterType, filterValue).withGarage(garageFilter));
+    }
+
+    private RowFilter criteriaFilter(PropertyStore store, boolean indexed, String filterType, List<String> filterValues, int minimumShare) {
+        RowFilter scan = filterType.equals("Assessment Class")
+                ? assessmentClassFilter(store, filterValues, minimumShare)
+                : codeFilter(store, filterType, filterValues);
+        if (indexed && filterType.equals("Assessment Class") && minimumShare > 0) {
+            AssessmentClassIndex shares = indexes.getAssessmentClassShares();
+            if (filterValues.size() == 1) {
+                String filterValue = filterValues.get(0);
+                return scan.withRows(shares.countRows(filterValue, minimumShare),
+                        action -> shares.forEachRow(filterValue, minimumShare, action), null);
+            }
+
+            // A row may list several of the classes, so walk their united rows and check the share there.
+            // The summed counts are at least the number of matches, which is all the estimate needs to be.
+            int estimatedRows = filterValues.stream().mapToInt(value -> shares.countRows(value, minimumShare)).sum();
+            RowBitmap rows = RowBitmap.or(filterValues.stream().map(indexes::getAssessmentClass).toList());
+            IntPredicate matches = scan.matches();
+            return scan.withRows(Math.min(estimatedRows, rows.getCardinality()), action -> rows.forEach(row -> {
+                if (matches.test(row)) {
+                    action.accept(row);
+                }
+            }), null);
+        }
+        if (indexed) {
+            RowBitmap rows = RowBitmap.or(filterValues.stream().map(filterValue -> valueRows(filterType, filterValue)).toList());
+            return bitmapFilter(scan, rows);
+        }
+        return scan;
     }
 
-    private boolean matchesFilter(PropertyAssessment property, String filterType, String filterValue) {
+    private RowBitmap valueRows(String filterType, String filterValue) {
         return switch (filterType) {
-            case "Neighborhood" -> property.getNeighborhood().getNeighborhoodName().equals(filterValue);
-            case "Ward" -> property.getNeighborhood().getWard().equals(filterValue);
-            case "Assessment Class" -> property.getAssessmentClass().toString().contains(filterValue);
-            default -> false;
+            case "Neighborhood" -> indexes.getNeighborhood(filterValue);
+            case "Ward" -> indexes.getWard(filterValue);
+            case "Assessment Class" -> indexes.getAssessmentClass(filterValue);
+            default -> RowBitmap.EMPTY;
         };
     }
 
+    // The filter values are resolved to dictionary codes once, so each row is a lookup in a table of codes. Both names
+    // and wards are looked up by the row's neighborhood code, with the table folded over the neighborhoods
+    private RowFilter codeFilter(PropertyStore store, String filterType, List<String> filterValues) {
+        StringDictionary dictionary = switch (filterType) {
+            case "Neighborhood" -> store.getNeighborhoodNames();
+            case "Ward" -> store.getWards();
+            default -> null;
+        };
+        if (dictionary == null) {
+            return new RowFilter(row -> false, 0, null);
+        }
+        boolean[] selected = new boolean[dictionary.size()];
+        for (String filterValue : filterValues) {
+            int code = dictionary.codeOf(filterValue);
+            if (code >= 0) {
+                selected[code] = true;
+            }
+        }
+
+        NeighborhoodDictionary neighborhoods = store.getNeighborhoods();
+        boolean byName = filterType.equals("Neighborhood");
+        boolean[] selectedNeighborhoods = new boolean[neighborhoods.size()];
+        for (int code = 0; code < selectedNeighborhoods.length; code++) {
+            selectedNeighborhoods[code] = selected[byName ? neighborhoods.getNameCode(code) : neighborhoods.getWardCode(code)];
+        }
+
+        // Without indexes, assume the rows are spread evenly over the values
+        int estimatedRows = (int) Math.min((long) store.size() / Math.max(dictionary.size(), 1) * filterValues.size(), store.size());
+        return codeFilter(store.getNeighborhoodCodes(), selectedNeighborhoods, estimatedRows);
+    }
+
+    // Rows share a few hundred class combinations, so each combination's best share of the classes is worked out once
+    private RowFilter assessmentClassFilter(PropertyStore store, List<String> assessmentClasses, int minimumShare) {
+        int[] combinationShares = null;
+        for (String assessmentClass : assessmentClasses) {
+            int[] shares = AssessmentClassIndex.sharesOfCombinations(store, assessmentClass);
+            if (combinationShares == null) {
+                combinationShares = shares;
+            } else {
+                for (int code = 0; code < shares.length; code++) {
+                    combinationShares[code] = Math.max(combinationShares[code], shares[code]);
+                }
+            }
+        }
+        boolean[] selected = new boolean[combinationShares.length];
+        for (int code = 0; code < selected.length; code++) {
+            selected[code] = combinationShares[code] >= minimumShare;
+        }
+        return codeFilter(store.getAssessmentClassCodes(), selected, store.size() / 2);
+    }
+
     /**
      * Retrieves distinct values for a given filter type.
      *
@@ -51,6 +655,9 @@ public class PropertyFilterService {
         if (filterType == null || filterType.isEmpty()) {
             return List.of(); // Return an empty list for invalid filter type
         }
+        if (indexes != null && indexes.getStore() == assessments.getStore() && assessments.hasAllRows()) {
+            return indexes.getDistinctValues().getValues(filterType);
+        }
 
         return switch (filterType) {
             case "Neighborhood" -> assessments.getProperties().stream()
@@ -69,7 +676,7 @@ public class PropertyFilterService {
                             p.getAssessmentClass().getAssessmentClass2(),
                             p.getAssessmentClass().getAssessmentClass3()
                     }))
-                    .filter(Objects::nonNull)
+                    .filter(name -> name != null && !name.isEmpty())
                     .distinct()
                     .sorted()
                     .toList();
@@ -78,33 +685,98 @@ public class PropertyFilterService {
     }
 
     public PropertyAssessments filterByGarage(PropertyAssessments assessments, String garageFilter) {
-        if (garageFilter.equals("All")) {
-            return assessments; // No filtering applied
+        return filter(assessments, PropertyQuery.ALL.withGarage(garageFilter));
+    }
+
+    private RowFilter garageFilter(PropertyStore store, boolean indexed, String garageFilter) {
+        boolean[] selected = new boolean[store.getGarages().size()];
+        int garageCode = store.getGarages().codeOf(garageFilter);
+        if (garageCode >= 0) {
+            selected[garageCode] = true;
         }
+        RowFilter scan = codeFilter(store.getGarageCodes(), selected, store.size() / Math.max(store.getGarages().size(), 1));
+        return indexed ? bitmapFilter(scan, indexes.getGarage(garageFilter)) : scan;
+    }
 
-        List<PropertyAssessment> filteredProperties = assessments.getProperties().stream()
-                .filter(property -> garageFilter.equals(property.getGarage()))
-                .collect(Collectors.toList());
+    public PropertyAssessments filterByPrice(PropertyAssessments assessments, String comparison, Long price) {
+        return filterByPrice(assessments, comparison, price, null);
+    }
 
-        return new PropertyAssessments(filteredProperties);
+    /**
+     * Filters properties by assessed value.
+     *
+     * @param comparison "Under", "Equal", "Above" or "Between".
+     * @param price      The price compared against, the lower bound for "Between".
+     * @param upperPrice The upper bound for "Between", inclusive like the lower bound. Null leaves it open.
+     */
+    public PropertyAssessments filterByPrice(PropertyAssessments assessments, String comparison, Long price, Long upperPrice) {
+        return filter(assessments, PropertyQuery.ALL.withPrice(comparison, price, upperPrice));
     }
 
-    public PropertyAssessments filterByPrice(PropertyAssessments assessments, String comparison, Long price) {
-        if (price == null || comparison == null || comparison.isEmpty()) {
-            return assessments; // No filtering applied if inputs are invalid
+    // The price filter over an inclusive range of values, or null for an unknown comparison, which filters nothing
+    private RowFilter priceFilter(PropertyStore store, boolean indexed, String comparison, long[] range) {
+        if (!List.of("Under", "Equal", "Above", "Between").contains(comparison)) {
+            return null;
         }
+        long low = range[0];
+        long high = range[1];
+        long[] values = store.getAssessedValues();
+        IntPredicate matches = row -> (values[row] >= low) & (values[row] <= high);
+        BatchCheck batch = new RangeCheck(values, low, high);
 
-        List<PropertyAssessment> filteredProperties = assessments.getProperties().stream()
-                .filter(property -> {
-                    return switch (comparison) {
-                        case "Under" -> property.getAssessedValue() < price;
-                        case "Equal" -> property.getAssessedValue() == price;
-                        case "Above" -> property.getAssessedValue() > price;
-                        default -> true;
-                    };
-                })
-                .collect(Collectors.toList());
+        if (indexed) {
+            ValueIndex index = indexes.getAssessedValues();
+            int from = index.lowerBound(low);
+            int to = low > high ? from : Math.max(from, index.upperBound(high));
+            return new RowFilter(matches, batch, to - from, action -> {
+                for (int position = from; position < to; position++) {
+                    action.accept(index.getRow(position));
+                }
+            }, null);
+        }
+
+        // Rough guesses: a single price matches few rows, an open comparison about half
+        int estimatedRows = switch (comparison) {
+            case "Equal" -> store.size() / 1000;
+            case "Between" -> store.size() / 4;
+            default -> store.size() / 2;
+        };
+        return new RowFilter(matches, batch, estimatedRows, null, null);
+    }
+
+    // Lists rows straight from an index
+    private interface RowSource {
+        void forEach(IntConsumer action);
+    }
 
-        return new PropertyAssessments(filteredProperties);
+    // A filter over a column of codes, checked in batches by a CodeCheck
+    private static RowFilter codeFilter(int[] codes, boolean[] selected, int estimatedRows) {
+        return new RowFilter(row -> selected[codes[row]], new CodeCheck(codes, selected), estimatedRows, null, null);
+    }
+
+    // The filter listing its rows from a bitmap holding exactly the rows it matches, so it can be intersected with
+    // others like it
+    private static RowFilter bitmapFilter(RowFilter filter, RowBitmap rows) {
+        return filter.withRows(rows.getCardinality(), rows::forEach, rows);
+    }
+
+    /**
+     * One filter of a query, compiled against a store.
+     *
+     * @param matches       Checks a single row.
+     * @param batch         Checks a block of rows, the same way as matches.
+     * @param estimatedRows How many rows of the store are expected to match, exact or an upper bound when indexed.
+     * @param rows          The matching rows from an index, or null without one.
+     * @param bitmap        The matching rows as a bitmap when an index has them exactly, or null.
+     */
+    private record RowFilter(IntPredicate matches, BatchCheck batch, int estimatedRows, RowSource rows, RowBitmap bitmap) {
+        RowFilter(IntPredicate matches, int estimatedRows, RowSource rows) {
+            this(matches, new PredicateCheck(matches), estimatedRows, rows, null);
+        }
+
+        // The same checks, with the rows listed from an index
+        RowFilter withRows(int estimatedRows, RowSource rows, RowBitmap bitmap) {
+            return new RowFilter(matches, batch, estimatedRows, rows, bitmap);
+        }
     }
-}
\ No newline at end of file
+}
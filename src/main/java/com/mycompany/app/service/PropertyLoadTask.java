@@ -0,0 +1,41 @@
+package com.mycompany.app.service;
+
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStatistics;
+import com.mycompany.app.model.ValueHistogram;
+import javafx.concurrent.Task;
+
+// Background task that loads the property assessment data, from its snapshot or with the parallel CSV loader
+public class PropertyLoadTask extends Task<PropertyAssessments> {
+    private final String fileName;
+    private final PropertyAssessments.LoadMode loadMode;
+    private volatile ValueHistogram histogram; // Of every loaded property, set once the load succeeds
+
+    public PropertyLoadTask(String fileName) {
+        this(fileName, PropertyAssessments.LoadMode.CACHED);
+    }
+
+    public PropertyLoadTask(String fileName, PropertyAssessments.LoadMode loadMode) {
+        this.fileName = fileName;
+        this.loadMode = loadMode;
+    }
+
+    @Override
+    protected PropertyAssessments call() throws Exception {
+        updateMessage("Loading " + fileName + "...");
+        PropertyAssessments propertyAssessments = new PropertyAssessments(fileName, loadMode, this::updateProgress);
+        if (propertyAssessments.getNumberOfRecords() > 0) {
+            // Work out everything first shown here, so the UI thread only reads it
+            PropertyStatistics statistics = propertyAssessments.getStatistics();
+            propertyAssessments.getPercentiles();
+            ValueHistogram allHistogram = new ValueHistogram();
+            allHistogram.compute(propertyAssessments, statistics.minValue(), statistics.maxValue(), ValueHistogram.Scale.LOG);
+            histogram = allHistogram;
+        }
+        updateMessage("Loaded " + propertyAssessments.getNumberOfRecords() + " properties.");
+        return propertyAssessments;
+    }
+
+    // The log scale histogram of every loaded property, or null if none were loaded
+    public ValueHistogram getHistogram() {return histogram;}
+}
@@ -0,0 +1,114 @@
+package com.mycompany.app.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+// The filters of one search over property assessments, run by PropertyFilterService.filter
+public record PropertyQuery(String filterType, List<String> filterValues, Integer minimumShare, String garage,
+                            String priceComparison, Long price, Long upperPrice) {
+    public static final PropertyQuery ALL = new PropertyQuery(null, null, null, null, null, null, null);
+
+    public PropertyQuery {
+        if (filterValues != null) {
+            filterValues = filterValues.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        }
+        if (filterType == null || filterValues == null || filterValues.isEmpty()) {
+            filterType = null;
+            filterValues = null;
+        }
+        if (!"Assessment Class".equals(filterType) || (minimumShare != null && minimumShare <= 0)) {
+            minimumShare = null;
+        }
+        if ("All".equals(garage)) {
+            garage = null;
+        }
+        if (priceComparison == null || priceComparison.isEmpty() || price == null) {
+            priceComparison = null;
+            price = null;
+        }
+        if (!"Between".equals(priceComparison)) {
+            upperPrice = null;
+        }
+    }
+
+    public PropertyQuery withCriteria(String filterType, String filterValue) {
+        return withCriteria(filterType, filterValue == null ? null : List.of(filterValue));
+    }
+
+    // Matches properties having any of the values
+    public PropertyQuery withCriteria(String filterType, Collection<String> filterValues) {
+        List<String> values = filterValues == null ? null : filterValues.stream().toList();
+        return new PropertyQuery(filterType, values, minimumShare, garage, priceComparison, price, upperPrice);
+    }
+
+    // Only kept alongside an assessment class filter, so set the criteria first
+    public PropertyQuery withMinimumShare(Integer minimumShare) {
+        return new PropertyQuery(filterType, filterValues, minimumShare, garage, priceComparison, price, upperPrice);
+    }
+
+    public PropertyQuery withGarage(String garage) {
+        return new PropertyQuery(filterType, filterValues, minimumShare, garage, priceComparison, price, upperPrice);
+    }
+
+    public PropertyQuery withPrice(String priceComparison, Long price, Long upperPrice) {
+        return new PropertyQuery(filterType, filterValues, minimumShare, garage, priceComparison, price, upperPrice);
+    }
+
+    public boolean hasCriteria() {return filterType != null;}
+    public boolean hasGarage() {return garage != null;}
+    public boolean hasPrice() {return priceComparison != null;}
+
+    // True if the query doesn't filter anything out
+    public boolean isEmpty() {return !hasCriteria() && !hasGarage() && !hasPrice();}
+
+    // Whether this query only selects properties the other also selects, every filter of the other being here the same or narrower
+    public boolean narrows(PropertyQuery other) {
+        if (other.hasCriteria()) {
+            boolean fewerValues = other.filterType.equals(filterType) && other.filterValues.containsAll(filterValues);
+            if (!fewerValues || shareOrZero(minimumShare) < shareOrZero(other.minimumShare)) {
+                return false;
+            }
+        }
+        if (other.hasGarage() && !other.garage.equals(garage)) {
+            return false;
+        }
+
+        long[] range = priceRange();
+        long[] otherRange = other.priceRange();
+        boolean emptyRange = range[0] > range[1];
+        return emptyRange || (range[0] >= otherRange[0] && range[1] <= otherRange[1]);
+    }
+
+    // Returns the filters of this query that the other one doesn't have exactly the same
+    public PropertyQuery withoutSharedFilters(PropertyQuery other) {
+        boolean sameCriteria = hasCriteria() && filterType.equals(other.filterType)
+                && filterValues.equals(other.filterValues) && Objects.equals(minimumShare, other.minimumShare);
+        boolean sameGarage = hasGarage() && garage.equals(other.garage);
+        boolean samePrice = hasPrice() && priceComparison.equals(other.priceComparison)
+                && price.equals(other.price) && Objects.equals(upperPrice, other.upperPrice);
+        return new PropertyQuery(
+                sameCriteria ? null : filterType, sameCriteria ? null : filterValues, sameCriteria ? null : minimumShare,
+                sameGarage ? null : garage,
+                samePrice ? null : priceComparison, samePrice ? null : price, samePrice ? null : upperPrice
+        );
+    }
+
+    // The assessed values the price filter lets through, both ends inclusive, lower above upper when none
+    long[] priceRange() {
+        if (!hasPrice()) {
+            return new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+        }
+        return switch (priceComparison) {
+            case "Under" -> price == Long.MIN_VALUE ? new long[]{0, -1} : new long[]{Long.MIN_VALUE, price - 1};
+            case "Equal" -> new long[]{price, price};
+            case "Above" -> price == Long.MAX_VALUE ? new long[]{0, -1} : new long[]{price + 1, Long.MAX_VALUE};
+            case "Between" -> new long[]{price, upperPrice == null ? Long.MAX_VALUE : upperPrice};
+            default -> new long[]{Long.MIN_VALUE, Long.MAX_VALUE}; // An unknown comparison filters nothing
+        };
+    }
+
+    private static int shareOrZero(Integer share) {
+        return share == null ? 0 : share;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mycompany.app.service;
+
+import com.mycompany.app.model.MultiYearPropertyStore;
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStore;
+import javafx.concurrent.Task;
+
+// Background task that loads another year's extract and keeps it with the shown year, the earlier of the two as the base
+public class YearComparisonTask extends Task<MultiYearPropertyStore> {
+    private final PropertyStore shownStore;
+    private final int shownYear;
+    private final String compareFileName;
+    private final int compareYear;
+
+    public YearComparisonTask(PropertyStore shownStore, int shownYear, String compareFileName, int compareYear) {
+        if (shownYear == compareYear) {
+            throw new IllegalArgumentException("Both extracts are for " + shownYear + ".");
+        }
+        this.shownStore = shownStore;
+        this.shownYear = shownYear;
+        this.compareFileName = compareFileName;
+        this.compareYear = compareYear;
+    }
+
+    @Override
+    protected MultiYearPropertyStore call() throws Exception {
+        updateMessage("Loading " + compareFileName + "...");
+        PropertyStore compareStore = new PropertyAssessments(compareFileName, PropertyAssessments.LoadMode.CACHED).getStore();
+
+        MultiYearPropertyStore years;
+        if (compareYear < shownYear) {
+            years = new MultiYearPropertyStore(compareYear, compareStore);
+            years.addYear(shownYear, shownStore);
+        } else {
+            years = new MultiYearPropertyStore(shownYear, shownStore);
+            years.addYear(compareYear, compareStore);
+        }
+        return years;
+    }
+
+    public int getShownYear() {return shownYear;}
+    public int getCompareYear() {return compareYear;}
+}
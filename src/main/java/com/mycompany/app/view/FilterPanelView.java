@@ -4,19 +4,25 @@ import javafx.scene.control.*;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 
+import java.util.List;
+
 public class FilterPanelView {
     private final Accordion filterPanel;
     private final ComboBox<String> filterDropdown;
-    private final ComboBox<String> valueDropdown;
+    private final ListView<String> valueList;
     private final Button applyFilterButton;
     private final Button removeFilterButton;
     private final TextField accountSearchInput;
     private final Button accountSearchButton;
+    private final TextField addressSearchInput;
+    private final ListView<String> addressResults;
     private final ToggleGroup garageFilterGroup;
     private final RadioButton allButton;
     private final RadioButton yesButton;
     private final RadioButton noButton;
+    private final TextField minimumShareInputField;
     private TextField priceInputField;
+    private TextField upperPriceInputField;
     private ComboBox<String> priceComparisonDropdown;
 
 
@@ -24,15 +30,18 @@ public class FilterPanelView {
         // Initialize the UI components
         filterPanel = new Accordion();
         filterDropdown = new ComboBox<>();
-        valueDropdown = new ComboBox<>();
+        valueList = new ListView<>();
         applyFilterButton = new Button("Apply Filter");
         removeFilterButton = new Button("Remove Filters");
         accountSearchInput = new TextField();
         accountSearchButton = new Button("Search");
+        addressSearchInput = new TextField();
+        addressResults = new ListView<>();
         garageFilterGroup = new ToggleGroup();
         allButton = new RadioButton("All");
         yesButton = new RadioButton("Yes");
         noButton = new RadioButton("No");
+        minimumShareInputField = new TextField();
 
         initializeFilterPanel();
     }
@@ -44,8 +53,11 @@ public class FilterPanelView {
         // Create the account Search pane
         TitledPane accountFilterPane = configureAccountSearchPane();
 
+        // Create the address search pane
+        TitledPane addressSearchPane = configureAddressSearchPane();
+
         // Add the filter pane to the accordion
-        filterPanel.getPanes().addAll(groupFilterPane, accountFilterPane);
+        filterPanel.getPanes().addAll(groupFilterPane, accountFilterPane, addressSearchPane);
 
         // Set accordion preferences
         filterPanel.setPrefWidth(250);
@@ -68,8 +80,14 @@ public class FilterPanelView {
         filterDropdown.setPromptText("Select a filter");
         filterDropdown.getItems().addAll("Neighborhood", "Assessment Class", "Ward");
 
-        // Configure value dropdown
-        valueDropdown.setPromptText("Select a value");
+        // Configure the value list, Ctrl or Shift click picks several values
+        valueList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        valueList.setPlaceholder(new Label("Select a filter first"));
+        valueList.setPrefHeight(150);
+
+        // Only used by "Assessment Class", empty for any share of the class
+        minimumShareInputField.setPromptText("Minimum class share % (optional)");
+        minimumShareInputField.setDisable(true);
 
         Label garageLabel = new Label("Garage Filter:");
         allButton.setToggleGroup(garageFilterGroup);
@@ -84,14 +102,20 @@ public class FilterPanelView {
         priceInputField.setPromptText("Enter price (e.g., 100000)");
 
         priceComparisonDropdown = new ComboBox<>();
-        priceComparisonDropdown.getItems().addAll("Under", "Equal", "Above");
+        priceComparisonDropdown.getItems().addAll("Under", "Equal", "Above", "Between");
         priceComparisonDropdown.setPromptText("Select comparison");
 
+        // Only used by "Between", as the upper end of the range
+        upperPriceInputField = new TextField();
+        upperPriceInputField.setPromptText("Enter upper price");
+        upperPriceInputField.setDisable(true);
+
         // Create content for filter pane
         VBox filterContent = new VBox(
                 10,
                 filterDropdown,
-                valueDropdown,
+                valueList,
+                minimumShareInputField,
                 garageLabel,
                 allButton,
                 yesButton,
@@ -99,6 +123,7 @@ public class FilterPanelView {
                 priceFilterLabel,
                 priceInputField,
                 priceComparisonDropdown,
+                upperPriceInputField,
                 applyFilterButton,
                 removeFilterButton
         );
@@ -115,6 +140,19 @@ public class FilterPanelView {
         return new TitledPane("Search by Account Number", accountGroupContent);
     }
 
+    private TitledPane configureAddressSearchPane() {
+        Label addressSearchLabel = new Label("Search by Address:");
+        addressSearchInput.setPromptText("Start typing an address (e.g., 10210 104 ST)");
+
+        // Matches are listed as they are typed, selecting one shows it on the map
+        addressResults.setPlaceholder(new Label("No matching addresses"));
+        addressResults.setPrefHeight(200);
+
+        VBox addressSearchContent = new VBox(10, addressSearchLabel, addressSearchInput, addressResults);
+
+        return new TitledPane("Search by Address", addressSearchContent);
+    }
+
     public String getSelectedGarageFilter() {
         if (yesButton.isSelected()) return "Y";
         if (noButton.isSelected()) return "N";
@@ -131,8 +169,16 @@ public class FilterPanelView {
         return filterDropdown;
     }
 
-    public ComboBox<String> getValueDropdown() {
-        return valueDropdown;
+    public ListView<String> getValueList() {
+        return valueList;
+    }
+
+    public List<String> getSelectedValues() {
+        return List.copyOf(valueList.getSelectionModel().getSelectedItems());
+    }
+
+    public TextField getMinimumShareInputField() {
+        return minimumShareInputField;
     }
 
     public Button getApplyFilterButton() {
@@ -151,10 +197,22 @@ public class FilterPanelView {
         return accountSearchButton;
     }
 
+    public TextField getAddressSearchInput() {
+        return addressSearchInput;
+    }
+
+    public ListView<String> getAddressResults() {
+        return addressResults;
+    }
+
     public String getPriceInput() { return priceInputField.getText().trim(); }
 
     public TextField getPriceInputField() { return priceInputField; }
 
+    public String getUpperPriceInput() { return upperPriceInputField.getText().trim(); }
+
+    public TextField getUpperPriceInputField() { return upperPriceInputField; }
+
     public String getPriceComparison() { return priceComparisonDropdown.getValue(); }
 
     public RadioButton getAllButton() { return allButton; }
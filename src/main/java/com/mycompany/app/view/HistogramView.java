@@ -0,0 +1,97 @@
+package com.mycompany.app.view;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+
+public class HistogramView {
+    private static final double WIDTH = 280;
+    private static final double HEIGHT = 140;
+    private static final double AXIS_HEIGHT = 14; // Room under the bars for the lowest and highest value
+
+    private final VBox histogramPanel;
+    private final Canvas canvas;
+    private final ToggleButton linearButton;
+    private final ToggleButton logButton;
+
+    public HistogramView() {
+        histogramPanel = new VBox(5);
+        canvas = new Canvas(WIDTH, HEIGHT);
+        linearButton = new ToggleButton("Linear");
+        logButton = new ToggleButton("Log");
+
+        initializeHistogramPanel();
+    }
+
+    private void initializeHistogramPanel() {
+        Label histogramLabel = new Label("Value Distribution");
+
+        // Exactly one scale is picked at a time
+        ToggleGroup scaleGroup = new ToggleGroup();
+        linearButton.setToggleGroup(scaleGroup);
+        logButton.setToggleGroup(scaleGroup);
+        logButton.setSelected(true);
+        HBox scaleButtons = new HBox(5, linearButton, logButton);
+
+        histogramPanel.getChildren().addAll(histogramLabel, scaleButtons, canvas);
+        histogramLabel.getStyleClass().add("statistics-label");
+    }
+
+    /**
+     * Draws a bar per bin, scaled to the fullest bin. Only the first {@code binCount} counts and
+     * {@code binCount + 1} edges are read.
+     */
+    public void drawHistogram(long[] counts, long[] edges, int binCount, long maxCount) {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, WIDTH, HEIGHT);
+
+        double barsHeight = HEIGHT - AXIS_HEIGHT;
+        double barWidth = WIDTH / binCount;
+        graphics.setFill(Color.STEELBLUE);
+        for (int bin = 0; bin < binCount; bin++) {
+            if (counts[bin] > 0) {
+                // Any bin with a property gets at least a pixel, so sparse bins stay visible
+                double barHeight = Math.max(1, barsHeight * counts[bin] / maxCount);
+                graphics.fillRect(bin * barWidth, barsHeight - barHeight, Math.max(1, barWidth - 1), barHeight);
+            }
+        }
+
+        graphics.setStroke(Color.GRAY);
+        graphics.setLineWidth(1);
+        graphics.strokeLine(0, barsHeight, WIDTH, barsHeight);
+        graphics.setFill(Color.BLACK);
+        graphics.fillText(shortAmount(edges[0]), 0, HEIGHT - 2);
+        String highest = shortAmount(edges[binCount]);
+        graphics.fillText(highest, WIDTH - 7 * highest.length(), HEIGHT - 2);
+    }
+
+    public void displayNoHistogram() {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, WIDTH, HEIGHT);
+        graphics.setFill(Color.GRAY);
+        graphics.fillText("No properties to chart.", 0, HEIGHT / 2);
+    }
+
+    // Dollar amounts short enough to fit under the axis, like $1.2M
+    private static String shortAmount(long value) {
+        if (Math.abs(value) >= 1_000_000_000L) {
+            return String.format("$%.1fB", value / 1e9);
+        } else if (Math.abs(value) >= 1_000_000L) {
+            return String.format("$%.1fM", value / 1e6);
+        } else if (Math.abs(value) >= 1_000L) {
+            return String.format("$%.0fK", value / 1e3);
+        }
+        return "$" + value;
+    }
+
+    // Getter for the histogram panel
+    public VBox getHistogramPanel() {return histogramPanel;}
+
+    public ToggleButton getLinearButton() {return linearButton;}
+    public ToggleButton getLogButton() {return logButton;}
+}
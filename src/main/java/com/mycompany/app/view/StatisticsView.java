@@ -50,20 +50,34 @@ public class StatisticsView {
         statisticsPanel.getStyleClass().add("statistics-panel");
     }
 
-    public void updateStatistics(int numberOfRecords, long minValue, long maxValue, long range, double mean, long median) {
+    // Percentiles that aren't exact are estimates, close to but not always exactly the values at those ranks
+    public void updateStatistics(int numberOfRecords, long minValue, long maxValue, long range, double mean, long median,
+                                 long p10, long p25, long p75, long p90, long p99, boolean exactPercentiles) {
         propertyStatisticsArea.setText(String.format(
                 "Number of Properties: %s%n" +
                         "Minimum Property Value: %s%n" +
                         "Maximum Property Value: %s%n" +
                         "Property Value Range: %s%n" +
                         "Property Value Mean: %s%n" +
-                        "Property Value Median: %s",
+                        "Property Value Median: %s%n%n" +
+                        "Percentiles%s:%n" +
+                        "10th: %s%n" +
+                        "25th: %s%n" +
+                        "75th: %s%n" +
+                        "90th: %s%n" +
+                        "99th: %s",
                 INTEGER_FORMAT.format(numberOfRecords),
                 CURRENCY_FORMAT.format(minValue),
                 CURRENCY_FORMAT.format(maxValue),
                 CURRENCY_FORMAT.format(range),
                 CURRENCY_FORMAT.format(mean),
-                CURRENCY_FORMAT.format(median)
+                CURRENCY_FORMAT.format(median),
+                exactPercentiles ? "" : " (approximate)",
+                CURRENCY_FORMAT.format(p10),
+                CURRENCY_FORMAT.format(p25),
+                CURRENCY_FORMAT.format(p75),
+                CURRENCY_FORMAT.format(p90),
+                CURRENCY_FORMAT.format(p99)
         ));
     }
 
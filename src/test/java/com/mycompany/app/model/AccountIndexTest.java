@@ -0,0 +1,69 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccountIndexTest {
+    @Test
+    void duplicateAccountKeepsItsFirstRow() {
+        AccountIndex index = new AccountIndex(store(7, 3, 7, 9, 3, 7));
+
+        assertEquals(0, index.rowOf(7));
+        assertEquals(1, index.rowOf(3));
+        assertEquals(3, index.rowOf(9));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void missingAccountIsMinusOne() {
+        AccountIndex index = new AccountIndex(store(1, 2, 3));
+
+        assertEquals(-1, index.rowOf(4));
+        assertEquals(-1, index.rowOf(-1));
+        assertEquals(-1, new AccountIndex(store()).rowOf(1));
+        assertEquals(0, new AccountIndex(store()).size());
+    }
+
+    @Test
+    void zeroAndNegativeAccountsAreIndexed() {
+        AccountIndex index = new AccountIndex(store(0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+        assertEquals(0, index.rowOf(0));
+        assertEquals(1, index.rowOf(-1));
+        assertEquals(2, index.rowOf(Integer.MIN_VALUE));
+        assertEquals(3, index.rowOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void matchesAMapOverManyAccounts() {
+        Random random = new Random(5);
+        int[] accountIDs = new int[50_000];
+        Map<Integer, Integer> firstRows = new HashMap<>();
+        for (int row = 0; row < accountIDs.length; row++) {
+            // Clustered numbers like the city's, with some repeated
+            accountIDs[row] = 1_000_000 + random.nextInt(60_000) * 16;
+            firstRows.putIfAbsent(accountIDs[row], row);
+        }
+        AccountIndex index = new AccountIndex(store(accountIDs));
+
+        assertEquals(firstRows.size(), index.size());
+        for (int row = 0; row < accountIDs.length; row++) {
+            assertEquals(firstRows.get(accountIDs[row]), index.rowOf(accountIDs[row]));
+            assertEquals(-1, index.rowOf(accountIDs[row] + 1));
+        }
+    }
+
+    private static PropertyStore store(int... accountIDs) {
+        PropertyStore.Builder builder = new PropertyStore.Builder(accountIDs.length);
+        for (int accountID : accountIDs) {
+            builder.add(accountID, 0, 100, "MAIN STREET", "N", 1, "NEIGHBORHOOD", "Ward", 100_000,
+                    53.5, -113.5, "POINT (-113.5 53.5)", 100, 0, 0, "RESIDENTIAL", "", "");
+        }
+        return builder.build();
+    }
+}
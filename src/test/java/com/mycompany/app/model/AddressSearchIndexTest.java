@@ -0,0 +1,113 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AddressSearchIndexTest {
+    private static final String[] TYPED = {"1", "10", "102", "1021", "10210", "10210 ", "10210 1", "10210 10", "10210 104",
+            "10210 104 S", "10210 104 ST", "j", "ja", "jas", "jasp", "jasper", "jasper a", "jasper av"};
+
+    // Rows 0-6, in the order they are added
+    private final AddressSearchIndex index = new AddressSearchIndex(store(
+            10210, "104 STREET NW",
+            1021, "104 STREET NW",
+            102, "104 STREET NW",
+            103, "104 STREET NW",
+            10210, "JASPER AVENUE NW",
+            5, "102 AVENUE NW",
+            0, "JASPER AVENUE NW"));
+
+    @Test
+    void houseNumberPrefixListsEachDigitRangeInTurn() {
+        // 102, then 1020-1029, then 10200-10299
+        assertArrayEquals(new int[]{2, 1, 0}, index.search("102 104 ST", 20));
+        assertArrayEquals(new int[]{0}, index.search("10210 104 st", 20));
+        assertArrayEquals(new int[]{0}, index.search("10210 104", 20));
+        assertArrayEquals(new int[0], index.search("9 104 ST", 20));
+    }
+
+    @Test
+    void streetOnlyListsTheStreetByHouseNumber() {
+        assertArrayEquals(new int[]{6, 4}, index.search("  jasper  av ", 20));
+        // Neither street starts with the text, so both are listed in name order
+        assertArrayEquals(new int[]{5, 6, 4}, index.search("AVENUE NW", 20));
+    }
+
+    @Test
+    void leadingNumberMayAlsoStartAStreetName() {
+        // No house number 104 on a street with ST in its name, but 104 STREET itself matches
+        assertArrayEquals(new int[]{2, 3, 1, 0}, index.search("104 ST", 20));
+        assertArrayEquals(new int[]{5}, index.search("102 AV", 20));
+    }
+
+    @Test
+    void bareNumberIsAHouseNumberBeforeAStreet() {
+        // House numbers starting 102 on any street, then 102 AVENUE without repeating them
+        assertArrayEquals(new int[]{2, 1, 0, 4, 5}, index.search("102", 20));
+        // 104 STREET's rows all start with 10, so only 102 AVENUE's row is added after the house numbers
+        assertArrayEquals(new int[]{2, 3, 1, 0, 4, 5}, index.search("10", 20));
+        assertArrayEquals(new int[]{0, 4}, index.search("10210", 20));
+    }
+
+    @Test
+    void bareNumberEdgeCases() {
+        assertArrayEquals(new int[]{6}, index.search("0", 20));
+        assertArrayEquals(new int[0], index.search("01", 20));
+        assertArrayEquals(new int[0], index.search("1234567890", 20));
+        assertArrayEquals(new int[]{2, 1}, index.search("102", 2));
+        assertArrayEquals(new int[0], index.search(" - ", 20));
+    }
+
+    @Test
+    void typingStaysUnderAMillisecondPerKeystroke() {
+        Random random = new Random(11);
+        Object[] rows = new Object[200_000 * 2];
+        for (int row = 0; row < rows.length / 2; row++) {
+            rows[row * 2] = 1 + random.nextInt(20_000);
+            rows[row * 2 + 1] = random.nextInt(4) == 0 ? "JASPER AVENUE NW" : (random.nextInt(300) + 1) + " STREET NW";
+        }
+        AddressSearchIndex large = new AddressSearchIndex(store(rows));
+
+        // Warm up, then time every keystroke of a few typed addresses
+        for (int round = 0; round < 2_000; round++) {
+            for (String text : TYPED) {
+                large.search(text, 20);
+            }
+        }
+        long[] nanos = new long[200 * TYPED.length];
+        int timed = 0;
+        for (int round = 0; round < 200; round++) {
+            for (String text : TYPED) {
+                long start = System.nanoTime();
+                int[] found = large.search(text, 20);
+                nanos[timed++] = System.nanoTime() - start;
+                assertTrue(found.length <= 20);
+            }
+        }
+        Arrays.sort(nanos);
+        long median = nanos[nanos.length / 2];
+        assertTrue(median < 1_000_000, "median keystroke took " + median + " ns");
+    }
+
+    @Test
+    void normalizeKeepsLettersAndDigits() {
+        assertEquals("10210 104 ST NW", AddressSearchIndex.normalize(" 10210, 104-st. nw "));
+        assertEquals("", AddressSearchIndex.normalize("--"));
+    }
+
+    // A store of house number and street name pairs
+    private static PropertyStore store(Object... houseNumbersAndStreets) {
+        PropertyStore.Builder builder = new PropertyStore.Builder(houseNumbersAndStreets.length / 2);
+        for (int row = 0; row < houseNumbersAndStreets.length / 2; row++) {
+            builder.add(1_000_000 + row, 0, (Integer) houseNumbersAndStreets[row * 2], (String) houseNumbersAndStreets[row * 2 + 1], "N",
+                    1, "NEIGHBORHOOD", "Ward", 100_000, 53.5, -113.5, "POINT (-113.5 53.5)", 100, 0, 0, "RESIDENTIAL", "", "");
+        }
+        return builder.build();
+    }
+}
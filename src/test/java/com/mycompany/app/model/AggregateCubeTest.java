@@ -0,0 +1,105 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregateCubeTest {
+    private static final String[] GARAGES = {"Y", "N", ""};
+    private static final int WARDS = 4;
+    private static final int NEIGHBORHOODS_PER_WARD = 5;
+
+    private final PropertyStore store = randomStore(20_000, 7);
+    private final AggregateCube cube = new AggregateCube(store);
+
+    @Test
+    void everySelectionMatchesARowScan() {
+        Random random = new Random(8);
+        for (int selection = 0; selection < 200; selection++) {
+            boolean[] neighborhoods = random.nextBoolean() ? null : randomSelection(store.getNeighborhoods().size(), random);
+            boolean[] garages = random.nextInt(4) == 0 ? null : randomSelection(store.getGarages().size(), random);
+            assertMatchesRowScan(neighborhoods, garages);
+        }
+    }
+
+    @Test
+    void wholeWardsMatchARowScan() {
+        // Every neighborhood of two wards and one of a third, so both the ward rollups and single cells are merged
+        NeighborhoodDictionary dictionary = store.getNeighborhoods();
+        boolean[] neighborhoods = new boolean[dictionary.size()];
+        boolean thirdWardPicked = false;
+        for (int code = 0; code < dictionary.size(); code++) {
+            int ward = dictionary.getWardCode(code);
+            if (ward < 2) {
+                neighborhoods[code] = true;
+            } else if (ward == 2 && !thirdWardPicked) {
+                neighborhoods[code] = true;
+                thirdWardPicked = true;
+            }
+        }
+        assertMatchesRowScan(neighborhoods, null);
+        assertMatchesRowScan(neighborhoods, new boolean[]{true, false, false});
+    }
+
+    @Test
+    void everyRowWhenNothingIsSelected() {
+        assertMatchesRowScan(null, null);
+        assertEquals(store.size(), cube.aggregate(null, null).getCount());
+    }
+
+    @Test
+    void emptySelectionHasNoValues() {
+        KllSketch sketch = cube.aggregate(new boolean[store.getNeighborhoods().size()], null);
+
+        assertTrue(sketch.isEmpty());
+        assertTrue(Percentiles.of(sketch).isEmpty());
+    }
+
+    private void assertMatchesRowScan(boolean[] neighborhoods, boolean[] garages) {
+        long count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < store.size(); row++) {
+            if ((neighborhoods == null || neighborhoods[store.getNeighborhoodCode(row)])
+                    && (garages == null || garages[store.getGarageCode(row)])) {
+                long value = store.getAssessedValue(row);
+                count++;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+
+        KllSketch sketch = cube.aggregate(neighborhoods, garages);
+        assertEquals(count, sketch.getCount());
+        if (count > 0) {
+            // A sketch keeps its minimum and maximum exact
+            assertEquals(min, sketch.getMin());
+            assertEquals(max, sketch.getMax());
+        }
+    }
+
+    private static boolean[] randomSelection(int size, Random random) {
+        boolean[] selected = new boolean[size];
+        for (int code = 0; code < size; code++) {
+            selected[code] = random.nextInt(3) == 0;
+        }
+        return selected;
+    }
+
+    private static PropertyStore randomStore(int rows, long seed) {
+        Random random = new Random(seed);
+        PropertyStore.Builder builder = new PropertyStore.Builder(rows);
+        for (int row = 0; row < rows; row++) {
+            int ward = random.nextInt(WARDS);
+            int neighborhood = ward * NEIGHBORHOODS_PER_WARD + random.nextInt(NEIGHBORHOODS_PER_WARD);
+            long value = random.nextInt(50) == 0 ? 0 : 50_000 + 1_000L * random.nextInt(2_000);
+            builder.add(1_000_000 + row, 0, 100 + row % 900, "STREET " + row % 40, GARAGES[random.nextInt(GARAGES.length)],
+                    neighborhood, "NEIGHBORHOOD " + neighborhood, "Ward " + ward, value,
+                    53.5, -113.5, "POINT (-113.5 53.5)", 100, 0, 0, "RESIDENTIAL", "", "");
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DistinctValueCatalogTest {
+    private static final String[] CLASSES = {"RESIDENTIAL", "COMMERCIAL", "FARMLAND", ""};
+
+    @Test
+    void valuesAreSortedWithTheirRowCounts() {
+        Random random = new Random(9);
+        PropertyStore.Builder builder = new PropertyStore.Builder();
+        Map<String, Integer> neighborhoods = new TreeMap<>();
+        Map<String, Integer> wards = new TreeMap<>();
+        Map<String, Integer> classes = new TreeMap<>();
+        for (int row = 0; row < 5_000; row++) {
+            int neighborhood = random.nextInt(30);
+            String ward = "Ward " + (char) ('A' + neighborhood % 7);
+            String[] rowClasses = {CLASSES[random.nextInt(3)], CLASSES[random.nextInt(4)], CLASSES[3]};
+            builder.add(row, 0, 100, "MAIN STREET", "N", neighborhood, "NEIGHBORHOOD " + neighborhood, ward, 100_000,
+                    53.5, -113.5, "POINT (-113.5 53.5)", 60, 40, 0, rowClasses[0], rowClasses[1], rowClasses[2]);
+
+            neighborhoods.merge("NEIGHBORHOOD " + neighborhood, 1, Integer::sum);
+            wards.merge(ward, 1, Integer::sum);
+            // A class named twice in a row still counts that row once, and a blank class is no value
+            Set<String> named = new TreeSet<>(List.of(rowClasses));
+            named.remove("");
+            named.forEach(name -> classes.merge(name, 1, Integer::sum));
+        }
+        DistinctValueCatalog catalog = new DistinctValueCatalog(builder.build());
+
+        assertCatalog(neighborhoods, catalog, "Neighborhood");
+        assertCatalog(wards, catalog, "Ward");
+        assertCatalog(classes, catalog, "Assessment Class");
+    }
+
+    @Test
+    void unknownTypesAndValuesAreEmpty() {
+        PropertyStore.Builder builder = new PropertyStore.Builder();
+        builder.add(1, 0, 100, "MAIN STREET", "N", 1, "NEIGHBORHOOD", "Ward", 100_000,
+                53.5, -113.5, "POINT (-113.5 53.5)", 100, 0, 0, "RESIDENTIAL", "", "");
+        DistinctValueCatalog catalog = new DistinctValueCatalog(builder.build());
+
+        assertEquals(List.of(), catalog.getValues("Garage"));
+        assertEquals(List.of(), catalog.getValues(null));
+        assertEquals(0, catalog.getCount("Neighborhood", "ELSEWHERE"));
+        assertEquals(0, catalog.getCount("Neighborhood", null));
+        assertEquals(0, catalog.getCount(null, "NEIGHBORHOOD"));
+        assertEquals(0, catalog.getCount("Assessment Class", ""));
+        assertEquals(List.of("RESIDENTIAL"), catalog.getValues("Assessment Class"));
+    }
+
+    private static void assertCatalog(Map<String, Integer> expected, DistinctValueCatalog catalog, String filterType) {
+        assertEquals(List.copyOf(expected.keySet()), catalog.getValues(filterType));
+        expected.forEach((value, count) -> assertEquals(count, catalog.getCount(filterType, value), value));
+    }
+}
@@ -0,0 +1,123 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KllSketchTest {
+    private static final double[] FRACTIONS = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    @Test
+    void quantilesStayWithinTheRankErrorAtTheDefaultK() {
+        long[] values = assessedValues(200_000, 1);
+        KllSketch sketch = sketchOf(values, 0, values.length);
+
+        assertEquals(KllSketch.DEFAULT_K, sketch.getK());
+        assertRankErrorWithin(sketch, sorted(values), sketch.getNormalizedRankError());
+    }
+
+    @Test
+    void mergedSketchesAnswerLikeOneSketchOfEveryValue() {
+        long[] values = assessedValues(120_000, 2);
+        KllSketch whole = sketchOf(values, 0, values.length);
+        KllSketch merged = new KllSketch();
+        for (int from = 0; from < values.length; from += 10_000) {
+            merged.merge(sketchOf(values, from, from + 10_000));
+        }
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        long[] sorted = sorted(values);
+        assertRankErrorWithin(merged, sorted, merged.getNormalizedRankError());
+        assertRankErrorWithin(whole, sorted, whole.getNormalizedRankError());
+    }
+
+    @Test
+    void quantilesAreExactUntilMoreThanKValuesAreAdded() {
+        long[] values = assessedValues(KllSketch.DEFAULT_K, 3);
+        KllSketch sketch = sketchOf(values, 0, values.length);
+        long[] sorted = sorted(values);
+
+        assertEquals(values.length, sketch.getRetainedValues());
+        for (double fraction : FRACTIONS) {
+            // The nearest rank, the smallest value with at least that fraction at or below it
+            int rank = (int) Math.ceil(fraction * sorted.length);
+            assertEquals(sorted[Math.max(rank, 1) - 1], sketch.getQuantile(fraction), "Quantile " + fraction);
+        }
+    }
+
+    @Test
+    void minimumAndMaximumAreExact() {
+        long[] values = assessedValues(50_000, 4);
+        values[12_345] = -7;
+        values[45_678] = 2_000_000_000L;
+        KllSketch sketch = sketchOf(values, 0, values.length);
+
+        assertEquals(-7, sketch.getMin());
+        assertEquals(2_000_000_000L, sketch.getMax());
+        assertEquals(-7, sketch.getQuantile(0));
+        assertEquals(2_000_000_000L, sketch.getQuantile(1));
+    }
+
+    @Test
+    void emptySketchHasNoQuantiles() {
+        KllSketch sketch = new KllSketch();
+
+        assertTrue(sketch.isEmpty());
+        assertThrows(NoSuchElementException.class, sketch::getMin);
+        assertThrows(NoSuchElementException.class, () -> sketch.getQuantile(0.5));
+    }
+
+    // The returned value's ranks must come within the error of the rank asked for
+    private static void assertRankErrorWithin(KllSketch sketch, long[] sorted, double error) {
+        for (double fraction : FRACTIONS) {
+            long value = sketch.getQuantile(fraction);
+            double lowestRank = (double) lowerBound(sorted, value) / sorted.length;
+            double highestRank = (double) lowerBound(sorted, value + 1) / sorted.length;
+            double distance = Math.max(0, Math.max(lowestRank - fraction, fraction - highestRank));
+            assertTrue(distance <= error, "Quantile " + fraction + " is off by a rank of " + distance);
+        }
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && sorted[index - 1] == value) {
+            index--;
+        }
+        return index;
+    }
+
+    // Skewed like assessed values, with many repeats
+    private static long[] assessedValues(int count, long seed) {
+        Random random = new Random(seed);
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.round(Math.exp(12 + 0.8 * random.nextGaussian()) / 500) * 500;
+        }
+        return values;
+    }
+
+    private static KllSketch sketchOf(long[] values, int from, int to) {
+        KllSketch sketch = new KllSketch();
+        for (int i = from; i < to; i++) {
+            sketch.update(values[i]);
+        }
+        return sketch;
+    }
+
+    private static long[] sorted(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
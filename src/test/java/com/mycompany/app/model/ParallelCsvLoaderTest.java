@@ -0,0 +1,130 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelCsvLoaderTest {
+    private static final String HEADER = "Account Number,Suite,House Number,Street Name,Garage,Neighbourhood ID,Neighbourhood,Ward,"
+            + "Assessed Value,Latitude,Longitude,Point Location,Assessment Class % 1,Assessment Class % 2,Assessment Class % 3,"
+            + "Assessment Class 1,Assessment Class 2,Assessment Class 3";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void chunksEndJustPastANewline() throws IOException {
+        Path csv = write("a.csv", "0123\n5678\n\nbc");
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = channel.size();
+            assertEquals(5, ParallelCsvLoader.findChunkEnd(channel, 0, 1, size));
+            assertEquals(5, ParallelCsvLoader.findChunkEnd(channel, 0, 4, size));
+            assertEquals(10, ParallelCsvLoader.findChunkEnd(channel, 0, 5, size));
+            assertEquals(11, ParallelCsvLoader.findChunkEnd(channel, 9, 1, size));
+            // The last line has no newline, so its chunk ends with the file
+            assertEquals(size, ParallelCsvLoader.findChunkEnd(channel, 10, 1, size));
+            assertEquals(size, ParallelCsvLoader.findChunkEnd(channel, 0, size, size));
+        }
+    }
+
+    @Test
+    void headerMayEndLikeAnyLine() throws IOException {
+        assertEquals(2, headerEnd("h\nrow"));
+        assertEquals(3, headerEnd("h\r\nrow"));
+        assertEquals(2, headerEnd("h\rrow"));
+        assertEquals(1, headerEnd("h"));
+    }
+
+    @Test
+    void manyChunksLoadLikeTheReader() throws IOException {
+        // Over 4 MB, so a four thread pool splits it into several chunks
+        Path csv = write("many.csv", csv(60_000, "\n", 5));
+        PropertyStore parallel = new ParallelCsvLoader(new ForkJoinPool(4)).load(csv, LoadProgressListener.NONE);
+        assertSameRows(load(csv, PropertyAssessments.LoadMode.READER), parallel);
+    }
+
+    @Test
+    void windowsLineEndsAndNoFinalNewlineLoadLikeTheReader() throws IOException {
+        String text = csv(500, "\r\n", 6);
+        Path csv = write("crlf.csv", text.substring(0, text.length() - 2));
+        assertSameRows(load(csv, PropertyAssessments.LoadMode.READER), load(csv, PropertyAssessments.LoadMode.PARALLEL));
+        assertSameRows(load(csv, PropertyAssessments.LoadMode.READER), load(csv, PropertyAssessments.LoadMode.MEMORY_MAPPED));
+    }
+
+    @Test
+    void progressReachesTheFileSize() throws IOException {
+        Path csv = write("progress.csv", csv(100, "\n", 7));
+        long[] last = new long[2];
+        new ParallelCsvLoader().load(csv, (done, total) -> {
+            last[0] = done;
+            last[1] = total;
+        });
+        assertEquals(Files.size(csv), last[0]);
+        assertEquals(Files.size(csv), last[1]);
+    }
+
+    static void assertSameRows(PropertyStore expected, PropertyStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.getAccountID(row), actual.getAccountID(row));
+            assertEquals(expected.getAddress(row), actual.getAddress(row));
+            assertEquals(expected.getGarage(row), actual.getGarage(row));
+            assertEquals(expected.getNeighborhood(row), actual.getNeighborhood(row));
+            assertEquals(expected.getAssessedValue(row), actual.getAssessedValue(row));
+            assertEquals(expected.getLocation(row), actual.getLocation(row));
+            assertEquals(expected.getPoint(row), actual.getPoint(row));
+            assertEquals(expected.getAssessmentClass(row), actual.getAssessmentClass(row));
+        }
+    }
+
+    // Rows shaped like the city's extract, with the blank fields it has
+    static String csv(int rows, String lineEnd, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(HEADER).append(lineEnd);
+        for (int row = 0; row < rows; row++) {
+            int neighborhood = random.nextInt(40);
+            double lat = 53.4 + random.nextInt(100_000) / 1e6;
+            double lng = -113.6 + random.nextInt(100_000) / 1e6;
+            text.append(1_000_000 + row).append(',')
+                    .append(random.nextInt(10) == 0 ? String.valueOf(1 + random.nextInt(900)) : "").append(',')
+                    .append(random.nextInt(20) == 0 ? "" : String.valueOf(1 + random.nextInt(20_000))).append(',')
+                    .append(1 + random.nextInt(300)).append(random.nextBoolean() ? " STREET NW," : " AVENUE NW,")
+                    .append(random.nextBoolean() ? "Y" : "N").append(',')
+                    .append(1000 + neighborhood).append(",NEIGH ").append(neighborhood).append(",Ward ").append(neighborhood % 6).append(',')
+                    .append(random.nextInt(50) == 0 ? "" : String.valueOf(random.nextInt(2_000_000))).append(',')
+                    .append(lat).append(',').append(lng).append(",POINT (").append(lng).append(' ').append(lat).append("),");
+            if (random.nextInt(4) == 0) {
+                text.append("60,40,,RESIDENTIAL,COMMERCIAL,");
+            } else {
+                text.append("100,,,RESIDENTIAL,,");
+            }
+            text.append(lineEnd);
+        }
+        return text.toString();
+    }
+
+    private Path write(String fileName, String text) throws IOException {
+        return Files.writeString(directory.resolve(fileName), text, StandardCharsets.UTF_8);
+    }
+
+    private long headerEnd(String text) throws IOException {
+        Path file = write("header.csv", text);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ParallelCsvLoader.findHeaderEnd(channel, channel.size());
+        }
+    }
+
+    private static PropertyStore load(Path csv, PropertyAssessments.LoadMode loadMode) throws IOException {
+        return new PropertyAssessments(csv.toString(), loadMode).getStore();
+    }
+}
@@ -0,0 +1,100 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropertySnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsEveryRow() throws IOException {
+        Path csv = writeCsv(2_000);
+        PropertyStore parsed = new ParallelCsvLoader().load(csv, LoadProgressListener.NONE);
+        PropertySnapshot.save(csv, parsed);
+
+        PropertyStore loaded = PropertySnapshot.load(csv, LoadProgressListener.NONE);
+        assertNotNull(loaded);
+        ParallelCsvLoaderTest.assertSameRows(parsed, loaded);
+    }
+
+    @Test
+    void missingSnapshotIsNull() throws IOException {
+        assertNull(PropertySnapshot.load(writeCsv(10), LoadProgressListener.NONE));
+    }
+
+    @Test
+    void changedCsvMakesTheSnapshotStale() throws IOException {
+        Path csv = writeCsv(100);
+        PropertySnapshot.save(csv, new ParallelCsvLoader().load(csv, LoadProgressListener.NONE));
+        Files.writeString(csv, ParallelCsvLoaderTest.csv(101, "\n", 3), StandardCharsets.UTF_8);
+
+        assertNull(PropertySnapshot.load(csv, LoadProgressListener.NONE));
+    }
+
+    @Test
+    void copyWithTheSameSizeAndTimeIsStillDetected() throws IOException {
+        Path csv = writeCsv(100);
+        PropertySnapshot.save(csv, new ParallelCsvLoader().load(csv, LoadProgressListener.NONE));
+        FileTime modified = Files.getLastModifiedTime(csv);
+
+        // One digit of the last account number changed, then the time put back
+        byte[] bytes = Files.readAllBytes(csv);
+        int digit = new String(bytes, StandardCharsets.ISO_8859_1).lastIndexOf("1000099");
+        bytes[digit + 6] = '8';
+        Files.write(csv, bytes);
+        Files.setLastModifiedTime(csv, modified);
+
+        assertNull(PropertySnapshot.load(csv, LoadProgressListener.NONE));
+    }
+
+    @Test
+    void corruptSnapshotThrows() throws IOException {
+        Path csv = writeCsv(100);
+        PropertySnapshot.save(csv, new ParallelCsvLoader().load(csv, LoadProgressListener.NONE));
+        corrupt(PropertySnapshot.snapshotPathFor(csv));
+
+        assertThrows(IOException.class, () -> PropertySnapshot.load(csv, LoadProgressListener.NONE));
+    }
+
+    @Test
+    void cachedLoadFallsBackToTheCsvAndRewritesACorruptSnapshot() throws IOException {
+        Path csv = writeCsv(100);
+        PropertyAssessments first = new PropertyAssessments(csv.toString(), PropertyAssessments.LoadMode.CACHED);
+        assertNull(first.getLoadWarning());
+        assertTrue(Files.isRegularFile(PropertySnapshot.snapshotPathFor(csv)));
+
+        corrupt(PropertySnapshot.snapshotPathFor(csv));
+        PropertyAssessments fallback = new PropertyAssessments(csv.toString(), PropertyAssessments.LoadMode.CACHED);
+        assertNotNull(fallback.getLoadWarning());
+        ParallelCsvLoaderTest.assertSameRows(first.getStore(), fallback.getStore());
+
+        // The snapshot was written again, so the next load uses it
+        PropertyAssessments cached = new PropertyAssessments(csv.toString(), PropertyAssessments.LoadMode.CACHED);
+        assertNull(cached.getLoadWarning());
+        assertEquals(100, cached.getNumberOfRecords());
+    }
+
+    private Path writeCsv(int rows) throws IOException {
+        return Files.writeString(directory.resolve("data.csv"), ParallelCsvLoaderTest.csv(rows, "\n", 3), StandardCharsets.UTF_8);
+    }
+
+    // Flips a byte in the middle of the snapshot's body
+    private static void corrupt(Path snapshot) throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(snapshot, bytes);
+    }
+}
@@ -0,0 +1,108 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowBitmapTest {
+    private static final int ROWS = 400_000; // Seven blocks of 65,536 rows
+
+    @Test
+    void buildKeepsEveryRow() {
+        for (double density : new double[]{0.001, 0.05, 0.5, 1}) {
+            BitSet rows = randomRows(density, 3);
+            assertSameRows(rows, bitmapOf(rows));
+        }
+    }
+
+    @Test
+    void andMatchesABitSetForSparseAndDenseBlocks() {
+        // Sparse blocks are kept as arrays and dense ones as bit words, so every pairing is intersected
+        double[] densities = {0.001, 0.05, 0.5};
+        for (double first : densities) {
+            for (double second : densities) {
+                BitSet a = randomRows(first, 11);
+                BitSet b = randomRows(second, 12);
+                BitSet expected = (BitSet) a.clone();
+                expected.and(b);
+                assertSameRows(expected, bitmapOf(a).and(bitmapOf(b)));
+            }
+        }
+    }
+
+    @Test
+    void orMatchesABitSetForSparseAndDenseBlocks() {
+        double[] densities = {0.001, 0.05, 0.5};
+        for (double first : densities) {
+            for (double second : densities) {
+                BitSet a = randomRows(first, 21);
+                BitSet b = randomRows(second, 22);
+                BitSet expected = (BitSet) a.clone();
+                expected.or(b);
+                assertSameRows(expected, bitmapOf(a).or(bitmapOf(b)));
+            }
+        }
+    }
+
+    @Test
+    void disjointBlocksAndEmptyBitmaps() {
+        BitSet low = new BitSet();
+        low.set(0, 100);
+        BitSet high = new BitSet();
+        high.set(300_000, 300_100);
+
+        assertTrue(bitmapOf(low).and(bitmapOf(high)).isEmpty());
+        assertEquals(200, bitmapOf(low).or(bitmapOf(high)).getCardinality());
+        assertTrue(RowBitmap.EMPTY.and(bitmapOf(low)).isEmpty());
+        assertSameRows(low, RowBitmap.EMPTY.or(bitmapOf(low)));
+        assertSameRows(high, RowBitmap.or(List.of(RowBitmap.EMPTY, bitmapOf(high))));
+        assertFalse(RowBitmap.EMPTY.contains(0));
+    }
+
+    @Test
+    void rowsMustBeAddedInAscendingOrder() {
+        RowBitmap.Builder builder = new RowBitmap.Builder();
+        builder.add(5);
+        assertThrows(IllegalArgumentException.class, () -> builder.add(5));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(4));
+    }
+
+    private static void assertSameRows(BitSet expected, RowBitmap bitmap) {
+        assertEquals(expected.cardinality(), bitmap.getCardinality());
+        BitSet actual = new BitSet();
+        int[] previous = {-1};
+        bitmap.forEach(row -> {
+            assertTrue(row > previous[0], "rows out of order");
+            previous[0] = row;
+            actual.set(row);
+        });
+        assertEquals(expected, actual);
+        for (int row = 0; row < ROWS; row += 97) {
+            assertEquals(expected.get(row), bitmap.contains(row));
+        }
+    }
+
+    private static RowBitmap bitmapOf(BitSet rows) {
+        RowBitmap.Builder builder = new RowBitmap.Builder();
+        rows.stream().forEach(builder::add);
+        return builder.build();
+    }
+
+    private static BitSet randomRows(double density, long seed) {
+        Random random = new Random(seed);
+        BitSet rows = new BitSet(ROWS);
+        for (int row = 0; row < ROWS; row++) {
+            if (random.nextDouble() < density) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+}
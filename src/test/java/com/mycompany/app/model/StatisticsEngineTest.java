@@ -0,0 +1,126 @@
+package com.mycompany.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatisticsEngineTest {
+    @Test
+    void medianOfAnOddCountIsTheMiddleValue() {
+        assertEquals(300, StatisticsEngine.median(new long[]{500, 100, 300, 400, 200}, 5));
+    }
+
+    @Test
+    void medianOfAnEvenCountIsTheMeanOfTheMiddleValues() {
+        assertEquals(250, StatisticsEngine.median(new long[]{400, 100, 300, 200}, 4));
+        assertEquals(15, StatisticsEngine.median(new long[]{20, 10}, 2));
+    }
+
+    @Test
+    void medianOnlyReadsTheFirstCountValues() {
+        assertEquals(200, StatisticsEngine.median(new long[]{300, 100, 200, 1_000_000, 1_000_000}, 3));
+    }
+
+    @Test
+    void repeatedValuesGiveTheSameStatisticsAsSorting() {
+        Random random = new Random(5);
+        for (int count = 1; count < 2_000; count += 37) {
+            long[] values = new long[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = 100_000 + 5_000L * random.nextInt(4); // Four distinct values
+            }
+            assertEquals(sortedMedian(values), StatisticsEngine.median(values.clone(), count), "Count " + count);
+        }
+
+        long[] same = new long[1_001];
+        Arrays.fill(same, 250_000);
+        assertEquals(250_000, StatisticsEngine.median(same, same.length));
+    }
+
+    @Test
+    void computeMatchesARowScan() {
+        long[] values = {350_000, 120_000, 980_000, 120_000, 450_000, 0};
+        PropertyStatistics statistics = StatisticsEngine.compute(values.clone(), values.length);
+
+        assertEquals(6, statistics.numberOfRecords());
+        assertEquals(0, statistics.minValue());
+        assertEquals(980_000, statistics.maxValue());
+        assertEquals(980_000, statistics.range());
+        assertEquals(Arrays.stream(values).sum() / values.length, statistics.mean());
+        assertEquals(sortedMedian(values), statistics.median());
+        assertSame(PropertyStatistics.EMPTY, StatisticsEngine.compute(new long[0], 0));
+    }
+
+    @Test
+    void selectFindsEveryIndexOfPatternsThatUnbalancePartitions() {
+        for (long[] values : patterns(1_000)) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int k = 0; k < values.length; k += 97) {
+                assertEquals(sorted[k], StatisticsEngine.select(values.clone(), 0, values.length, k));
+            }
+        }
+    }
+
+    @Test
+    void sortFallbackLeavesTheValueAtItsSortedIndex() {
+        for (long[] values : patterns(500)) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int k = 0; k < values.length; k += 61) {
+                long[] selected = values.clone();
+                // No partition rounds, so the range is sorted straight away
+                assertEquals(sorted[k], StatisticsEngine.select(selected, 0, values.length, k, 0));
+                assertEquals(sorted[k], selected[k]);
+            }
+        }
+    }
+
+    @Test
+    void quantilesAreTheNearestRanksOfTheSortedValues() {
+        double[] fractions = {0, 0.10, 0.25, 0.5, 0.75, 0.90, 0.99, 1};
+        for (long[] values : patterns(1_001)) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            long[] quantiles = StatisticsEngine.quantiles(values.clone(), values.length, fractions);
+            for (int q = 0; q < fractions.length; q++) {
+                int rank = (int) Math.max(1, Math.ceil(fractions[q] * values.length));
+                assertEquals(sorted[rank - 1], quantiles[q], "Fraction " + fractions[q]);
+            }
+        }
+        assertArrayEquals(new long[]{7, 7}, StatisticsEngine.quantiles(new long[]{7}, 1, 0.10, 0.99));
+    }
+
+    @Test
+    void quantilesRejectFractionsOutOfOrder() {
+        assertThrows(IllegalArgumentException.class, () -> StatisticsEngine.quantiles(new long[]{1, 2, 3}, 3, 0.9, 0.1));
+    }
+
+    private static long[][] patterns(int count) {
+        long[] ascending = new long[count];
+        long[] descending = new long[count];
+        long[] organPipe = new long[count];
+        long[] sawtooth = new long[count];
+        long[] random = new Random(6).longs(count, 0, 2_000_000).toArray();
+        for (int i = 0; i < count; i++) {
+            ascending[i] = i;
+            descending[i] = count - i;
+            organPipe[i] = Math.min(i, count - i);
+            sawtooth[i] = i % 17;
+        }
+        return new long[][]{ascending, descending, organPipe, sawtooth, random};
+    }
+
+    private static long sortedMedian(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 != 0 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
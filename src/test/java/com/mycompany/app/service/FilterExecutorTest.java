@@ -0,0 +1,88 @@
+package com.mycompany.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterExecutorTest {
+    @Test
+    void resultFinishedAfterANewerSubmissionIsDiscarded() throws Exception {
+        FilterExecutor executor = new FilterExecutor();
+        FutureTask<String> older = new FutureTask<>(() -> "older");
+        executor.submit(older);
+        assertEquals("older", older.get(5, TimeUnit.SECONDS));
+
+        FutureTask<String> newer = new FutureTask<>(() -> "newer");
+        executor.submit(newer);
+        assertEquals("newer", newer.get(5, TimeUnit.SECONDS));
+
+        // The older one finished first but was only looked at after the newer one was submitted
+        assertFalse(executor.acceptResult(older));
+        assertTrue(executor.acceptResult(newer));
+        assertEquals(1, executor.getDiscardedCount());
+    }
+
+    @Test
+    void submittingCancelsTheRunningAndWaitingTasks() throws Exception {
+        FilterExecutor executor = new FilterExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FutureTask<String> running = new FutureTask<>(() -> {
+            started.countDown();
+            release.await();
+            return "running";
+        });
+        AtomicInteger waitingRuns = new AtomicInteger();
+        FutureTask<String> waiting = new FutureTask<>(() -> {
+            waitingRuns.incrementAndGet();
+            return "waiting";
+        });
+        FutureTask<String> latest = new FutureTask<>(() -> "latest");
+
+        executor.submit(running);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit(waiting);
+        executor.submit(latest);
+
+        assertEquals("latest", latest.get(5, TimeUnit.SECONDS));
+        assertTrue(running.isCancelled());
+        assertTrue(waiting.isCancelled());
+        assertEquals(0, waitingRuns.get());
+        assertEquals(3, executor.getSubmittedCount());
+        assertEquals(2, executor.getCancelledCount());
+        assertEquals(0, executor.getQueueDepth());
+        assertFalse(executor.acceptResult(running));
+        assertTrue(executor.acceptResult(latest));
+    }
+
+    @Test
+    void tasksNeverRunAtTheSameTime() throws InterruptedException, ExecutionException, TimeoutException {
+        FilterExecutor executor = new FilterExecutor();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        FutureTask<Integer> last = null;
+        for (int i = 0; i < 200; i++) {
+            int id = i;
+            last = new FutureTask<>(() -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                running.decrementAndGet();
+                return id;
+            });
+            executor.submit(last);
+        }
+
+        assertEquals(199, last.get(5, TimeUnit.SECONDS));
+        assertTrue(mostRunning.get() <= 1);
+        assertTrue(executor.acceptResult(last));
+    }
+}
@@ -0,0 +1,111 @@
+package com.mycompany.app.service;
+
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyStore;
+import com.mycompany.app.service.FilterResultCache.FilterResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FilterResultCacheTest {
+    private static final PropertyStore STORE = store(1_000);
+
+    @Test
+    void repeatedQueryIsAHit() {
+        FilterResultCache cache = new FilterResultCache();
+        int[] computed = {0};
+        FilterResult first = cache.get(query(1), q -> {
+            computed[0]++;
+            return result(q, 10);
+        });
+        FilterResult second = cache.get(query(1), q -> {
+            computed[0]++;
+            return result(q, 10);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, computed[0]);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvictedPastTheEntryLimit() {
+        FilterResultCache cache = new FilterResultCache(2, Long.MAX_VALUE);
+        cache.put(query(1), result(query(1), 10));
+        cache.put(query(2), result(query(2), 10));
+        cache.get(query(1), q -> result(q, 10)); // Now used more recently than query 2
+        cache.put(query(3), result(query(3), 10));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertCached(cache, query(1));
+        assertCached(cache, query(3));
+    }
+
+    @Test
+    void resultsAreEvictedPastTheByteLimit() {
+        FilterResult small = result(query(1), 100);
+        long limit = 2 * small.estimateBytes();
+        FilterResultCache cache = new FilterResultCache(32, limit);
+        cache.put(query(1), small);
+        cache.put(query(2), result(query(2), 100));
+        assertEquals(limit, cache.getEstimatedBytes());
+
+        cache.put(query(3), result(query(3), 100));
+        assertEquals(2, cache.size());
+        assertEquals(limit, cache.getEstimatedBytes());
+
+        // A result over the limit on its own is still kept, everything older goes
+        FilterResult large = result(query(4), 1_000);
+        cache.put(query(4), large);
+        assertEquals(1, cache.size());
+        assertEquals(large.estimateBytes(), cache.getEstimatedBytes());
+        assertEquals(3, cache.getEvictionCount());
+    }
+
+    @Test
+    void everyRowCostsNoRowArray() {
+        FilterResult all = FilterResult.of(PropertyQuery.ALL, new PropertyAssessments(STORE, null));
+        assertEquals(result(query(1), 0).estimateBytes(), all.estimateBytes());
+    }
+
+    @Test
+    void replacingAResultRecountsItsBytes() {
+        FilterResultCache cache = new FilterResultCache();
+        cache.put(query(1), result(query(1), 100));
+        FilterResult replacement = result(query(1), 10);
+        cache.put(query(1), replacement);
+
+        assertEquals(1, cache.size());
+        assertEquals(replacement.estimateBytes(), cache.getEstimatedBytes());
+        cache.clear();
+        assertEquals(0, cache.getEstimatedBytes());
+    }
+
+    private static void assertCached(FilterResultCache cache, PropertyQuery query) {
+        long misses = cache.getMissCount();
+        cache.get(query, q -> result(q, 10));
+        assertEquals(misses, cache.getMissCount(), query + " was evicted");
+    }
+
+    private static PropertyQuery query(long price) {
+        return PropertyQuery.ALL.withPrice("Above", price, null);
+    }
+
+    private static FilterResult result(PropertyQuery query, int rows) {
+        return FilterResult.of(query, new PropertyAssessments(STORE, IntStream.range(0, rows).toArray()));
+    }
+
+    private static PropertyStore store(int rows) {
+        PropertyStore.Builder builder = new PropertyStore.Builder(rows);
+        for (int row = 0; row < rows; row++) {
+            builder.add(1_000_000 + row, 0, 100 + row, "MAIN STREET", "N", 1, "NEIGHBORHOOD", "Ward", 100_000 + row,
+                    53.5, -113.5, "POINT (-113.5 53.5)", 100, 0, 0, "RESIDENTIAL", "", "");
+        }
+        return builder.build();
+    }
+}
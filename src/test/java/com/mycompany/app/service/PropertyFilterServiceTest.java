@@ -0,0 +1,146 @@
+package com.mycompany.app.service;
+
+import com.mycompany.app.model.PropertyAssessments;
+import com.mycompany.app.model.PropertyIndexes;
+import com.mycompany.app.model.PropertyStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class PropertyFilterServiceTest {
+    private static final String[] CLASSES = {"RESIDENTIAL", "COMMERCIAL", "FARMLAND", "OTHER RESIDENTIAL"};
+    private static final List<String> NEIGHBORHOODS = List.of("NEIGHBORHOOD 0", "NEIGHBORHOOD 1", "NEIGHBORHOOD 2", "NEIGHBORHOOD 7");
+    private static final List<String> WARDS = List.of("Ward 0", "Ward 1", "Ward 2");
+
+    private final PropertyAssessments all = new PropertyAssessments(store(30_000, 13), null);
+    private final PropertyFilterService scan = new PropertyFilterService();
+    private final PropertyFilterService indexed = new PropertyFilterService(new PropertyIndexes(all.getStore()));
+
+    @Test
+    void refineMatchesAFreshFilterWithoutIndexes() {
+        assertRefineMatchesFilter(scan, 14);
+    }
+
+    @Test
+    void refineMatchesAFreshFilterWithIndexes() {
+        assertRefineMatchesFilter(indexed, 15);
+    }
+
+    @Test
+    void narrowingAndWideningOneFilterAtATime() {
+        PropertyQuery ward = PropertyQuery.ALL.withCriteria("Ward", "Ward 1");
+        PropertyQuery garage = ward.withGarage("Y");
+        PropertyQuery price = garage.withPrice("Between", 300_000L, 900_000L);
+        PropertyQuery neighborhoods = price.withCriteria("Neighborhood", NEIGHBORHOODS);
+        List<PropertyQuery> steps = List.of(PropertyQuery.ALL, ward, garage, price, neighborhoods, price, garage, ward, PropertyQuery.ALL);
+
+        for (PropertyFilterService service : List.of(scan, indexed)) {
+            PropertyQuery previous = steps.get(0);
+            PropertyAssessments previousResult = all;
+            for (PropertyQuery query : steps.subList(1, steps.size())) {
+                PropertyAssessments refined = service.refine(all, previous, previousResult, query);
+                assertSameRows(scan.filter(all, query), refined, previous + " -> " + query);
+                previous = query;
+                previousResult = refined;
+            }
+        }
+    }
+
+    @Test
+    void batchedAndScalarPassesMatch() {
+        Random random = new Random(16);
+        PropertyIndexes indexes = new PropertyIndexes(all.getStore());
+        List<PropertyFilterService[]> pairs = List.of(
+                new PropertyFilterService[]{scan, new PropertyFilterService(null, PropertyFilterService.Evaluation.SCALAR)},
+                new PropertyFilterService[]{indexed, new PropertyFilterService(indexes, PropertyFilterService.Evaluation.SCALAR)});
+        PropertyQuery query = PropertyQuery.ALL;
+        for (int step = 0; step < 1_000; step++) {
+            query = change(query, random);
+            for (PropertyFilterService[] pair : pairs) {
+                PropertyAssessments batched = pair[0].filter(all, query);
+                assertSameRows(pair[1].filter(all, query), batched, query.toString());
+                // Over a subset of the rows too, like a pass over an earlier result
+                PropertyQuery within = change(query, random);
+                assertSameRows(pair[1].filter(batched, within), pair[0].filter(batched, within), query + " then " + within);
+            }
+        }
+    }
+
+    // Walks through random changes to every kind of filter, refining each result from the one before
+    private void assertRefineMatchesFilter(PropertyFilterService service, long seed) {
+        Random random = new Random(seed);
+        PropertyQuery previous = PropertyQuery.ALL;
+        PropertyAssessments previousResult = all;
+        for (int step = 0; step < 1_500; step++) {
+            PropertyQuery query = change(previous, random);
+            PropertyAssessments refined = service.refine(all, previous, previousResult, query);
+            assertSameRows(scan.filter(all, query), refined, previous + " -> " + query);
+            previous = query;
+            previousResult = refined;
+        }
+    }
+
+    private static PropertyQuery change(PropertyQuery query, Random random) {
+        return switch (random.nextInt(7)) {
+            case 0 -> query.withCriteria(null, (String) null);
+            case 1 -> {
+                String filterType = new String[]{"Neighborhood", "Ward", "Assessment Class"}[random.nextInt(3)];
+                List<String> pool = switch (filterType) {
+                    case "Neighborhood" -> NEIGHBORHOODS;
+                    case "Ward" -> WARDS;
+                    default -> List.of(CLASSES);
+                };
+                List<String> values = new ArrayList<>();
+                for (String value : pool) {
+                    if (random.nextInt(3) == 0) {
+                        values.add(value);
+                    }
+                }
+                yield query.withCriteria(filterType, values);
+            }
+            case 2 -> query.withMinimumShare(new Integer[]{null, 30, 50, 100}[random.nextInt(4)]);
+            case 3 -> query.withGarage(new String[]{"All", "Y", "N"}[random.nextInt(3)]);
+            case 4 -> {
+                String comparison = new String[]{"Under", "Equal", "Above", "Between"}[random.nextInt(4)];
+                long price = random.nextInt(10) * 100_000L;
+                yield query.withPrice(comparison, price, price + random.nextInt(10) * 100_000L);
+            }
+            case 5 -> query.withPrice(null, null, null);
+            default -> query.hasPrice()
+                    ? query.withPrice(query.priceComparison(), query.price() + random.nextInt(100_001) - 50_000, query.upperPrice())
+                    : query;
+        };
+    }
+
+    private static void assertSameRows(PropertyAssessments expected, PropertyAssessments actual, String message) {
+        assertArrayEquals(rows(expected), rows(actual), message);
+    }
+
+    private static int[] rows(PropertyAssessments assessments) {
+        int[] rows = new int[assessments.getNumberOfRecords()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = assessments.getRow(i);
+        }
+        return rows;
+    }
+
+    private static PropertyStore store(int rows, long seed) {
+        Random random = new Random(seed);
+        PropertyStore.Builder builder = new PropertyStore.Builder(rows);
+        for (int row = 0; row < rows; row++) {
+            int neighborhood = random.nextInt(12);
+            long value = random.nextInt(10) * 100_000L + random.nextInt(3) * 50_000L;
+            int share = new int[]{100, 70, 50, 30}[random.nextInt(4)];
+            String firstClass = CLASSES[random.nextInt(CLASSES.length)];
+            String secondClass = share == 100 ? "" : CLASSES[random.nextInt(CLASSES.length)];
+            builder.add(1_000_000 + row, 0, 100 + row % 500, "STREET " + row % 50, random.nextBoolean() ? "Y" : "N",
+                    neighborhood, "NEIGHBORHOOD " + neighborhood, "Ward " + neighborhood % 4, value,
+                    53.5, -113.5, "POINT (-113.5 53.5)", share, 100 - share, 0, firstClass, secondClass, "");
+        }
+        return builder.build();
+    }
+}
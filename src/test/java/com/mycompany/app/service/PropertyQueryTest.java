@@ -0,0 +1,109 @@
+package com.mycompany.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropertyQueryTest {
+    private static final PropertyQuery NEIGHBORHOODS = PropertyQuery.ALL.withCriteria("Neighborhood", List.of("B", "A"));
+
+    @Test
+    void valuesAreSortedAndIncompleteFiltersDropped() {
+        assertEquals(List.of("A", "B"), NEIGHBORHOODS.filterValues());
+        assertTrue(PropertyQuery.ALL.withCriteria("Neighborhood", List.of()).isEmpty());
+        assertTrue(PropertyQuery.ALL.withCriteria(null, "A").isEmpty());
+        assertTrue(PropertyQuery.ALL.withGarage("All").isEmpty());
+        assertTrue(PropertyQuery.ALL.withPrice("Above", null, null).isEmpty());
+        assertNull(PropertyQuery.ALL.withPrice("Above", 5L, 10L).upperPrice());
+        // A minimum share only means something for assessment classes
+        assertNull(NEIGHBORHOODS.withMinimumShare(50).minimumShare());
+        assertNull(PropertyQuery.ALL.withCriteria("Assessment Class", "RESIDENTIAL").withMinimumShare(0).minimumShare());
+    }
+
+    @Test
+    void priceRangesAreInclusive() {
+        assertRange(Long.MIN_VALUE, Long.MAX_VALUE, PropertyQuery.ALL);
+        assertRange(Long.MIN_VALUE, 99, price("Under", 100, null));
+        assertRange(100, 100, price("Equal", 100, null));
+        assertRange(101, Long.MAX_VALUE, price("Above", 100, null));
+        assertRange(100, 200, price("Between", 100, 200L));
+        assertRange(Long.MIN_VALUE, Long.MAX_VALUE, price("Roughly", 100, null));
+    }
+
+    @Test
+    void priceRangesAtTheLimitsAreEmptyRatherThanWrapping() {
+        long[] under = price("Under", Long.MIN_VALUE, null).priceRange();
+        long[] above = price("Above", Long.MAX_VALUE, null).priceRange();
+
+        assertTrue(under[0] > under[1]);
+        assertTrue(above[0] > above[1]);
+    }
+
+    @Test
+    void narrowsWhenEveryFilterIsTheSameOrTighter() {
+        assertTrue(NEIGHBORHOODS.narrows(PropertyQuery.ALL));
+        assertTrue(NEIGHBORHOODS.withCriteria("Neighborhood", "A").narrows(NEIGHBORHOODS));
+        assertTrue(NEIGHBORHOODS.withGarage("Y").narrows(NEIGHBORHOODS));
+        assertTrue(price("Between", 150, 160L).narrows(price("Above", 100, null)));
+        assertTrue(price("Equal", 100, null).narrows(price("Between", 100, 100L)));
+        assertTrue(NEIGHBORHOODS.narrows(NEIGHBORHOODS));
+
+        assertFalse(PropertyQuery.ALL.narrows(NEIGHBORHOODS));
+        assertFalse(NEIGHBORHOODS.narrows(NEIGHBORHOODS.withCriteria("Neighborhood", "A")));
+        assertFalse(PropertyQuery.ALL.withCriteria("Ward", "A").narrows(NEIGHBORHOODS));
+        assertFalse(NEIGHBORHOODS.withGarage("Y").narrows(NEIGHBORHOODS.withGarage("N")));
+        assertFalse(price("Above", 99, null).narrows(price("Above", 100, null)));
+    }
+
+    @Test
+    void higherMinimumShareNarrows() {
+        PropertyQuery residential = PropertyQuery.ALL.withCriteria("Assessment Class", "RESIDENTIAL");
+
+        assertTrue(residential.withMinimumShare(60).narrows(residential.withMinimumShare(50)));
+        assertTrue(residential.withMinimumShare(50).narrows(residential));
+        assertFalse(residential.narrows(residential.withMinimumShare(50)));
+    }
+
+    @Test
+    void emptyPriceRangeNarrowsAnything() {
+        PropertyQuery nothing = price("Under", Long.MIN_VALUE, null);
+
+        assertTrue(nothing.narrows(price("Equal", 5, null)));
+        assertTrue(price("Between", 10, 5L).narrows(price("Equal", 5, null)));
+    }
+
+    @Test
+    void withoutSharedFiltersKeepsOnlyWhatDiffers() {
+        PropertyQuery before = NEIGHBORHOODS.withGarage("Y").withPrice("Above", 100L, null);
+
+        assertTrue(before.withoutSharedFilters(before).isEmpty());
+        assertEquals(PropertyQuery.ALL.withGarage("N"), before.withGarage("N").withoutSharedFilters(before));
+        assertEquals(PropertyQuery.ALL.withPrice("Above", 200L, null), before.withPrice("Above", 200L, null).withoutSharedFilters(before));
+        assertEquals(PropertyQuery.ALL.withCriteria("Neighborhood", "A"),
+                before.withCriteria("Neighborhood", "A").withoutSharedFilters(before));
+        // A filter only the other query has is simply absent
+        assertTrue(PropertyQuery.ALL.withoutSharedFilters(before).isEmpty());
+    }
+
+    @Test
+    void minimumShareIsPartOfTheCriteria() {
+        PropertyQuery residential = PropertyQuery.ALL.withCriteria("Assessment Class", "RESIDENTIAL").withGarage("Y");
+
+        assertEquals(PropertyQuery.ALL.withCriteria("Assessment Class", "RESIDENTIAL").withMinimumShare(50),
+                residential.withMinimumShare(50).withoutSharedFilters(residential));
+    }
+
+    private static PropertyQuery price(String comparison, long price, Long upperPrice) {
+        return PropertyQuery.ALL.withPrice(comparison, price, upperPrice);
+    }
+
+    private static void assertRange(long low, long high, PropertyQuery query) {
+        assertArrayEquals(new long[]{low, high}, query.priceRange());
+    }
+}